@@ -1,6 +1,8 @@
 package com.seibel.distanthorizons.common.commands;
 
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkSaveCoalescer;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapperCache;
 import com.seibel.distanthorizons.core.logging.f3.F3Screen;
 import net.minecraft.commands.CommandSourceStack;
 
@@ -18,6 +20,8 @@ public class DebugCommand extends AbstractCommand
 				.executes(c -> {
 					List<String> lines = new ArrayList<>();
 					F3Screen.addStringToDisplay(lines);
+					lines.add(ChunkSaveCoalescer.getDebugString());
+					lines.add(ChunkWrapperCache.getDebugString());
 					return this.sendSuccessResponse(c, String.join("\n", lines));
 				});
 	}
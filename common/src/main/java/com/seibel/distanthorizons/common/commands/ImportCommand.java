@@ -0,0 +1,63 @@
+package com.seibel.distanthorizons.common.commands;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.RegionFileImporter;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.server.level.ServerLevel;
+
+import static net.minecraft.commands.Commands.literal;
+
+/**
+ * Command for importing a level's pre-existing region files into DH's LODs.
+ * 
+ * @see RegionFileImporter
+ */
+public class ImportCommand extends AbstractCommand
+{
+	/** how many parsed chunks can be waiting for the LOD builder at once */
+	private static final int MAX_CHUNKS_IN_FLIGHT = 256;
+	
+	
+	
+	@Override
+	public LiteralArgumentBuilder<CommandSourceStack> buildCommand()
+	{
+		return literal("import")
+				.executes(this::startImport)
+				.then(literal("status")
+						.executes(c -> {
+							RegionFileImporter importer = RegionFileImporter.getImporter(c.getSource().getLevel());
+							if (importer == null)
+							{
+								return this.sendSuccessResponse(c, "No region import has been run for this level.");
+							}
+							
+							return this.sendSuccessResponse(c, (importer.isRunning() ? "Importing: " : "Import finished: ") + importer.getProgressString());
+						}))
+				.then(literal("cancel")
+						.executes(c -> {
+							RegionFileImporter importer = RegionFileImporter.getImporter(c.getSource().getLevel());
+							if (importer == null || !importer.isRunning())
+							{
+								return this.sendSuccessResponse(c, "No region import is running for this level.");
+							}
+							
+							importer.cancel();
+							return this.sendSuccessResponse(c, "Region import canceled.");
+						}));
+	}
+	
+	private int startImport(CommandContext<CommandSourceStack> commandContext)
+	{
+		ServerLevel level = commandContext.getSource().getLevel();
+		String errorMessage = RegionFileImporter.tryStartImport(level, MAX_CHUNKS_IN_FLIGHT);
+		if (errorMessage != null)
+		{
+			return this.sendSuccessResponse(commandContext, errorMessage);
+		}
+		
+		return this.sendSuccessResponse(commandContext, "Started region import for [" + level.dimension().location() + "], progress will be logged.");
+	}
+	
+}
@@ -1,5 +1,6 @@
 package com.seibel.distanthorizons.common.commonMixins;
 
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkSnapshot;
 import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
 import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
 import com.seibel.distanthorizons.core.api.internal.ServerApi;
@@ -13,6 +14,16 @@ public class MixinChunkMapCommon
 	
 	public static void onChunkSave(ServerLevel level, ChunkAccess chunk, CallbackInfoReturnable<Boolean> ci)
 	{
+		// keep the region existence cache up to date,
+		// this needs to happen before any of the validations below
+		// otherwise the cache may incorrectly say a saved chunk doesn't exist
+		if (ci.getReturnValue())
+		{
+			ServerLevelWrapper.getWrapper(level).getChunkExistenceCache().markChunkExists(chunk.getPos());
+			// the chunk was modified, so any cached wrapper is out of date
+			ServerLevelWrapper.getWrapper(level).getChunkWrapperCache().invalidate(chunk);
+		}
+		
 		// is this position already being updated?
 		if (SharedApi.isChunkAtChunkPosAlreadyUpdating(chunk.getPos().x, chunk.getPos().z))
 		{
@@ -76,10 +87,16 @@ public class MixinChunkMapCommon
 		
 		
 		// submit the update event
-		ServerApi.INSTANCE.serverChunkSaveEvent(
-				new ChunkWrapper(chunk, ServerLevelWrapper.getWrapper(level)),
-				ServerLevelWrapper.getWrapper(level)
-		);
+		ServerLevelWrapper levelWrapper = ServerLevelWrapper.getWrapper(level);
+		
+		// creating the ChunkWrapper can be expensive (especially when DH recalculates heightmaps)
+		// so only snapshot the chunk here and create the wrapper off the server thread,
+		// the coalescer will also merge repeated saves and skip unchanged chunks
+		#if MC_VER >= MC_1_18_2
+		levelWrapper.getChunkSaveCoalescer().submit(ChunkSnapshot.create(level, chunk));
+		#else
+		ServerApi.INSTANCE.serverChunkSaveEvent(new ChunkWrapper(chunk, levelWrapper), levelWrapper);
+		#endif
 	}
 	
 }
@@ -0,0 +1,31 @@
+package com.seibel.distanthorizons.common.commonMixins;
+
+import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+public class MixinLevelChunkCommon
+{
+	
+	public static void onSetBlockState(Level level, LevelChunk chunk, CallbackInfoReturnable<BlockState> ci)
+	{
+		// null means nothing changed,
+		// client block changes are handled by the BlockChangeDebouncer
+		if (ci.getReturnValue() == null || !(level instanceof ServerLevel))
+		{
+			return;
+		}
+		
+		// done at the same time MC marks the chunk as unsaved,
+		// otherwise cached wrappers would keep returning stale data until the chunk is saved
+		ServerLevelWrapper levelWrapper = ServerLevelWrapper.tryGetWrapper((ServerLevel) level);
+		if (levelWrapper != null)
+		{
+			levelWrapper.getChunkWrapperCache().invalidate(chunk);
+		}
+	}
+	
+}
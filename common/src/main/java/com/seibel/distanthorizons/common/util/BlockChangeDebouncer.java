@@ -0,0 +1,242 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.util;
+
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapperCache;
+import com.seibel.distanthorizons.core.api.internal.SharedApi;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Batches client-side block changes (breaking/placing blocks) 
+ * so rapidly editing a chunk only causes a single LOD update
+ * once the edits have settled. <br><br>
+ * 
+ * This also means the update is run after the server has
+ * had time to apply the change, instead of when the player
+ * first clicks the block. <br><br>
+ * 
+ * Pending chunks are checked every client tick via {@link BlockChangeDebouncer#tick()},
+ * the LOD updates themselves are run on the file handler threads.
+ */
+public class BlockChangeDebouncer
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	public static final BlockChangeDebouncer INSTANCE = new BlockChangeDebouncer();
+	
+	/** how long a chunk must go without edits before it's updated */
+	static final long QUIET_PERIOD_IN_MS = 500;
+	/** continuous editing will still update the chunk at least this often */
+	static final long MAX_DELAY_IN_MS = 2_000;
+	/** 
+	 * how long to wait for an in progress update of the same chunk to finish, 
+	 * after that the update is submitted anyway so the edit isn't held forever 
+	 */
+	private static final long MAX_WAIT_FOR_UPDATING_CHUNK_IN_MS = 10_000;
+	
+	private final ConcurrentHashMap<Long, PendingChunk> pendingChunkByPos = new ConcurrentHashMap<>();
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	/** package-private so tests can use their own instance */
+	BlockChangeDebouncer() { }
+	
+	
+	
+	//=========//
+	// methods //
+	//=========//
+	
+	/** Can be called from any thread. */
+	public void onBlockChanged(LevelAccessor level, BlockPos blockPos) { this.onBlockChanged(level, blockPos.getX() >> 4, blockPos.getZ() >> 4, System.currentTimeMillis()); }
+	void onBlockChanged(LevelAccessor level, int chunkX, int chunkZ, long now)
+	{
+		// done atomically so an edit can't be lost between tick() checking
+		// the chunk and removing it
+		this.pendingChunkByPos.compute(ChunkPos.asLong(chunkX, chunkZ), (chunkPosLong, pendingChunk) ->
+		{
+			if (pendingChunk != null && pendingChunk.level == level)
+			{
+				// an update is already pending, just push it back
+				pendingChunk.lastChangeMs = now;
+				return pendingChunk;
+			}
+			
+			// either this is the first edit or the player changed levels,
+			// in which case the old level's update is no longer needed
+			return new PendingChunk(level, chunkX, chunkZ, now);
+		});
+	}
+	
+	/** Should be called once per client tick. */
+	public void tick()
+	{
+		if (this.pendingChunkByPos.isEmpty())
+		{
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		for (Long chunkPosLong : this.pendingChunkByPos.keySet())
+		{
+			this.tryFlush(chunkPosLong, now);
+		}
+	}
+	
+	private void tryFlush(long chunkPosLong, long now)
+	{
+		PendingChunk pendingChunk = this.pendingChunkByPos.get(chunkPosLong);
+		if (pendingChunk == null || !pendingChunk.isReadyToFlush(now))
+		{
+			return;
+		}
+		
+		if (SharedApi.isChunkAtChunkPosAlreadyUpdating(pendingChunk.chunkX, pendingChunk.chunkZ)
+			&& now - pendingChunk.readyMs() < MAX_WAIT_FOR_UPDATING_CHUNK_IN_MS)
+		{
+			// wait for the current update to finish so this change isn't lost
+			return;
+		}
+		
+		if (!this.tryRemoveReadyChunk(chunkPosLong, pendingChunk, now))
+		{
+			return;
+		}
+		
+		
+		// executor to prevent locking up the client thread
+		// if the getChunk() takes longer than expected 
+		// (which can be caused by certain mods) 
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor == null)
+		{
+			return;
+		}
+		
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					ChunkAccess chunk = pendingChunk.level.getChunk(pendingChunk.chunkX, pendingChunk.chunkZ);
+					if (chunk != null)
+					{
+						ILevelWrapper wrappedLevel = ProxyUtil.getLevelWrapper(pendingChunk.level);
+						ChunkWrapperCache.invalidate(wrappedLevel, chunk);
+						SharedApi.INSTANCE.chunkBlockChangedEvent(new ChunkWrapper(chunk, wrappedLevel), wrappedLevel);
+					}
+				}
+				catch (Exception e)
+				{
+					LOGGER.warn("Unable to update chunk ["+pendingChunk.chunkX+","+pendingChunk.chunkZ+"] after a block change, error: ["+e.getMessage()+"].", e);
+				}
+			});
+		}
+		catch (RejectedExecutionException ignore) { }
+	}
+	
+	/**
+	 * Only removes the chunk if it wasn't edited again since it was checked,
+	 * this compute and onBlockChanged's compute can't interleave.
+	 * 
+	 * @return true if the chunk was removed and should be updated
+	 */
+	boolean tryRemoveReadyChunk(long chunkPosLong, PendingChunk pendingChunk, long now)
+	{
+		boolean[] removed = new boolean[1];
+		this.pendingChunkByPos.computeIfPresent(chunkPosLong, (pos, currentPendingChunk) ->
+		{
+			if (currentPendingChunk != pendingChunk || !currentPendingChunk.isReadyToFlush(now))
+			{
+				return currentPendingChunk;
+			}
+			
+			removed[0] = true;
+			return null;
+		});
+		return removed[0];
+	}
+	
+	/** Drops any pending updates for the given level so it isn't kept in memory after unloading. */
+	public void onLevelUnload(LevelAccessor level)
+	{
+		for (Map.Entry<Long, PendingChunk> entry : this.pendingChunkByPos.entrySet())
+		{
+			if (entry.getValue().level == level)
+			{
+				this.pendingChunkByPos.remove(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+	
+	@Nullable
+	PendingChunk getPendingChunk(int chunkX, int chunkZ) { return this.pendingChunkByPos.get(ChunkPos.asLong(chunkX, chunkZ)); }
+	
+	
+	
+	//================//
+	// helper classes //
+	//================//
+	
+	static class PendingChunk
+	{
+		public final LevelAccessor level;
+		public final int chunkX;
+		public final int chunkZ;
+		
+		public final long firstChangeMs;
+		/** only modified inside {@link ConcurrentHashMap#compute} */
+		public volatile long lastChangeMs;
+		
+		public PendingChunk(LevelAccessor level, int chunkX, int chunkZ, long changeMs)
+		{
+			this.level = level;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+			
+			this.firstChangeMs = changeMs;
+			this.lastChangeMs = changeMs;
+		}
+		
+		public boolean isReadyToFlush(long now) { return now >= this.readyMs(); }
+		/** @return when the chunk either finished its quiet period or hit the max delay, whichever is first */
+		public long readyMs() { return Math.min(this.lastChangeMs + QUIET_PERIOD_IN_MS, this.firstChangeMs + MAX_DELAY_IN_MS); }
+	}
+	
+}
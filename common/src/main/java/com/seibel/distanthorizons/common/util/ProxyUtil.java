@@ -19,15 +19,30 @@
 
 package com.seibel.distanthorizons.common.util;
 
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkSnapshot;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapperCache;
+import com.seibel.distanthorizons.common.wrappers.chunk.CompactChunkSnapshot;
 import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
 import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import com.seibel.distanthorizons.core.api.internal.SharedApi;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class ProxyUtil
 {
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
 	
 	public static ILevelWrapper getLevelWrapper(LevelAccessor level)
 	{
@@ -44,4 +59,47 @@ public class ProxyUtil
 		return levelWrapper;
 	}
 	
+	/**
+	 * Fires {@link SharedApi#chunkLoadEvent} for the given chunk. <br>
+	 * When possible only a {@link ChunkSnapshot} is taken on the calling thread,
+	 * the {@link ChunkWrapper} is then created on one of DH's worker threads
+	 * so the client thread doesn't stall when chunks are streaming in.
+	 */
+	public static void submitChunkLoadEvent(LevelAccessor level, ChunkAccess chunk)
+	{
+		ILevelWrapper levelWrapper = getLevelWrapper(level);
+		// the client re-uses chunk objects when the server re-sends a chunk,
+		// so any cached wrapper for it is out of date
+		ChunkWrapperCache.invalidate(levelWrapper, chunk);
+		
+		#if MC_VER >= MC_1_18_2
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor != null && level instanceof Level)
+		{
+			ChunkSnapshot snapshot = ChunkSnapshot.create((Level) level, chunk);
+			try
+			{
+				executor.execute(() ->
+				{
+					try
+					{
+						SharedApi.INSTANCE.chunkLoadEvent(CompactChunkSnapshot.create(snapshot, levelWrapper), levelWrapper);
+					}
+					catch (Exception e)
+					{
+						LOGGER.warn("Unable to process loaded chunk ["+chunk.getPos()+"], error: ["+e.getMessage()+"].", e);
+					}
+				});
+				return;
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down, handle the load on this thread instead
+			}
+		}
+		#endif
+		
+		SharedApi.INSTANCE.chunkLoadEvent(new ChunkWrapper(chunk, levelWrapper), levelWrapper);
+	}
+	
 }
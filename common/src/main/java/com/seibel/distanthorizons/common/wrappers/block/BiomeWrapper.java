@@ -30,6 +30,7 @@ import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 import net.minecraft.world.level.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.IBiomeWrapper;
 
@@ -42,9 +43,11 @@ import net.minecraft.core.RegistryAccess;
 import net.minecraft.data.BuiltinRegistries;
 #else
 import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
 import net.minecraft.core.registries.Registries;
 #endif
 
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.biome.Biome;
 #if MC_VER >= MC_1_18_2
@@ -110,17 +113,39 @@ public class BiomeWrapper implements IBiomeWrapper
 		}
 		
 		
-		if (WRAPPER_BY_BIOME.containsKey(biome))
+		BiomeWrapper wrapper = WRAPPER_BY_BIOME.get(biome);
+		if (wrapper == null)
 		{
-			return WRAPPER_BY_BIOME.get(biome);
+			BiomeWrapper newWrapper = new BiomeWrapper(biome, levelWrapper);
+			
+			// another thread may have created the wrapper in the meantime
+			wrapper = WRAPPER_BY_BIOME.putIfAbsent(biome, newWrapper);
+			if (wrapper == null)
+			{
+				wrapper = newWrapper;
+			}
 		}
-		else
+		return wrapper;
+	}
+	
+	@Nullable
+	static Registry<Biome> getBiomeRegistry(ILevelWrapper levelWrapper)
+	{
+		if (levelWrapper == null || levelWrapper.getWrappedMcObject() == null)
 		{
-			BiomeWrapper newWrapper = new BiomeWrapper(biome, levelWrapper);
-			WRAPPER_BY_BIOME.put(biome, newWrapper);
-			return newWrapper;
+			return null;
 		}
+		
+		net.minecraft.core.RegistryAccess registryAccess = ((Level) levelWrapper.getWrappedMcObject()).registryAccess();
+		#if MC_VER < MC_1_19_4
+		return registryAccess.registryOrThrow(Registry.BIOME_REGISTRY);
+		#elif MC_VER < MC_1_21_3
+		return registryAccess.registryOrThrow(Registries.BIOME);
+		#else
+		return registryAccess.lookupOrThrow(Registries.BIOME);
+		#endif
 	}
+	
 	private BiomeWrapper(#if MC_VER < MC_1_18_2 Biome #else Holder<Biome> #endif biome, ILevelWrapper levelWrapper)
 	{
 		this.biome = biome;
@@ -318,21 +343,23 @@ public class BiomeWrapper implements IBiomeWrapper
 				Biome biome = registryAccess.registryOrThrow(Registry.BIOME_REGISTRY).get(resourceLocation);
 				success = (biome != null);
 				#elif MC_VER == MC_1_18_2 || MC_VER == MC_1_19_2
-				Biome unwrappedBiome = registryAccess.registryOrThrow(Registry.BIOME_REGISTRY).get(resourceLocation);
-				success = (unwrappedBiome != null);
-				Holder<Biome> biome = new Holder.Direct<>(unwrappedBiome);
+				// use the registry's holder so the wrapper matches the ones created from chunks
+				Optional<Holder<Biome>> optionalBiomeHolder = registryAccess.registryOrThrow(Registry.BIOME_REGISTRY).getHolder(ResourceKey.create(Registry.BIOME_REGISTRY, resourceLocation));
+				success = optionalBiomeHolder.isPresent();
+				Holder<Biome> biome = optionalBiomeHolder.orElse(null);
 				#elif MC_VER < MC_1_21_3
-				Biome unwrappedBiome = registryAccess.registryOrThrow(Registries.BIOME).get(resourceLocation);
-				success = (unwrappedBiome != null);
-				Holder<Biome> biome = new Holder.Direct<>(unwrappedBiome);
+				// use the registry's holder so the wrapper matches the ones created from chunks
+				Optional<Holder.Reference<Biome>> optionalBiomeHolder = registryAccess.registryOrThrow(Registries.BIOME).getHolder(ResourceKey.create(Registries.BIOME, resourceLocation));
+				success = optionalBiomeHolder.isPresent();
+				Holder<Biome> biome = optionalBiomeHolder.isPresent() ? optionalBiomeHolder.get() : null;
 				#else
 				Holder<Biome> biome;
 				Optional<Holder.Reference<Biome>> optionalBiomeHolder = registryAccess.lookupOrThrow(Registries.BIOME).get(resourceLocation);
 				if (optionalBiomeHolder.isPresent())
 				{
-					Biome unwrappedBiome = optionalBiomeHolder.get().value();
-					success = (unwrappedBiome != null);
-					biome = new Holder.Direct<>(unwrappedBiome);
+					// use the registry's holder so the wrapper matches the ones created from chunks
+					success = true;
+					biome = optionalBiomeHolder.get();
 				}
 				else
 				{
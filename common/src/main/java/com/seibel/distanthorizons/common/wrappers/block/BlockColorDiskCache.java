@@ -0,0 +1,215 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+import com.seibel.distanthorizons.common.wrappers.VersionConstants;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import net.minecraft.client.Minecraft;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores {@link ClientBlockStateColorCache}'s baked colors on disk
+ * so they don't have to be re-calculated from the textures every time the game starts. <br><br>
+ *
+ * The file is only used if its fingerprint matches the current one.
+ * The fingerprint changes if the block state registry, MC version, animation frame averaging,
+ * enabled resource packs, the contents of the resource pack folder, or the jars in the mod folder change.
+ *
+ * @see ClientBlockStateColorCache#startBakeAsync()
+ */
+public class BlockColorDiskCache
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	public static final String FOLDER_NAME = "distant_horizons_cache";
+	public static final String FILE_NAME = "blockColors.dat";
+	/** should be incremented whenever the file format or color calculation changes */
+	private static final int FORMAT_VERSION = 1;
+	
+	
+	
+	//===============//
+	// file handling //
+	//===============//
+	
+	/** @return null if the file doesn't exist, couldn't be read, or is out of date */
+	@Nullable
+	static ClientBlockStateColorCache.BakedColors tryLoad(long fingerprint, int stateCount, long registryFingerprint) { return tryLoad(getFile(), fingerprint, stateCount, registryFingerprint); }
+	@Nullable
+	static ClientBlockStateColorCache.BakedColors tryLoad(File file, long fingerprint, int stateCount, long registryFingerprint)
+	{
+		if (!file.exists())
+		{
+			return null;
+		}
+		
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)))))
+		{
+			int formatVersion = inputStream.readInt();
+			long savedFingerprint = inputStream.readLong();
+			int savedStateCount = inputStream.readInt();
+			if (formatVersion != FORMAT_VERSION
+				|| savedFingerprint != fingerprint
+				|| savedStateCount != stateCount)
+			{
+				LOGGER.info("Block color cache ["+file+"] is out of date, colors will be re-calculated.");
+				return null;
+			}
+			
+			ClientBlockStateColorCache.BakedColors bakedColors = new ClientBlockStateColorCache.BakedColors(stateCount, registryFingerprint);
+			inputStream.readFully(bakedColors.flags);
+			for (int i = 0; i < stateCount; i++)
+			{
+				bakedColors.baseColors[i] = inputStream.readInt();
+			}
+			for (int i = 0; i < stateCount; i++)
+			{
+				bakedColors.tintIndices[i] = inputStream.readInt();
+			}
+			return bakedColors;
+		}
+		catch (IOException e)
+		{
+			LOGGER.warn("Unable to read block color cache ["+file+"], error: ["+e.getMessage()+"].", e);
+			return null;
+		}
+	}
+	
+	static void save(long fingerprint, ClientBlockStateColorCache.BakedColors bakedColors) { save(getFile(), fingerprint, bakedColors); }
+	static void save(File file, long fingerprint, ClientBlockStateColorCache.BakedColors bakedColors)
+	{
+		File tempFile = new File(file.getPath() + ".tmp");
+		try
+		{
+			Files.createDirectories(file.getParentFile().toPath());
+			
+			int stateCount = bakedColors.flags.length;
+			try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tempFile)))))
+			{
+				outputStream.writeInt(FORMAT_VERSION);
+				outputStream.writeLong(fingerprint);
+				outputStream.writeInt(stateCount);
+				
+				// each array is written separately so similar values are next to each other, improving compression
+				outputStream.write(bakedColors.flags);
+				for (int i = 0; i < stateCount; i++)
+				{
+					outputStream.writeInt(bakedColors.baseColors[i]);
+				}
+				for (int i = 0; i < stateCount; i++)
+				{
+					outputStream.writeInt(bakedColors.tintIndices[i]);
+				}
+			}
+			
+			// replace the old file only after the new one has been fully written
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			LOGGER.warn("Unable to save block color cache ["+file+"], error: ["+e.getMessage()+"].", e);
+		}
+	}
+	
+	private static File getFile() { return new File(new File(Minecraft.getInstance().gameDirectory, FOLDER_NAME), FILE_NAME); }
+	
+	
+	
+	//=============//
+	// fingerprint //
+	//=============//
+	
+	/** @param selectedResourcePackIds must be read on the client thread, see {@link ClientBlockStateColorCache#startBakeAsync()} */
+	static long computeFingerprint(Collection<String> selectedResourcePackIds)
+	{
+		long fingerprint = FORMAT_VERSION;
+		fingerprint = (fingerprint * 31) + BlockStateDictionary.getRegistryFingerprint();
+		fingerprint = (fingerprint * 31) + VersionConstants.INSTANCE.getMinecraftVersion().hashCode();
+		fingerprint = (fingerprint * 31) + (ClientBlockStateColorCache.AVERAGE_ALL_ANIMATION_FRAMES ? 1 : 0);
+		
+		// order matters since higher packs override lower ones
+		for (String packId : selectedResourcePackIds)
+		{
+			fingerprint = (fingerprint * 31) + packId.hashCode();
+		}
+		
+		// catches packs and mods being updated without being renamed
+		File gameDirectory = Minecraft.getInstance().gameDirectory;
+		fingerprint = (fingerprint * 31) + getFolderFingerprint(new File(gameDirectory, "resourcepacks"), true);
+		// mod folders can contain large config/library trees, only the jars themselves matter
+		fingerprint = (fingerprint * 31) + getFolderFingerprint(new File(gameDirectory, "mods"), false);
+		
+		return fingerprint;
+	}
+	/** 
+	 * @param recurseIntoFolders should be true for the resource pack folder, 
+	 *                           since unzipped resource packs are often edited in place without the top level folder changing. 
+	 */
+	static long getFolderFingerprint(File folder, boolean recurseIntoFolders)
+	{
+		File[] files = folder.listFiles();
+		if (files == null)
+		{
+			return 0;
+		}
+		
+		// listFiles() doesn't guarantee any order
+		Arrays.sort(files, Comparator.comparing(File::getName));
+		
+		long fingerprint = files.length;
+		for (File file : files)
+		{
+			fingerprint = (fingerprint * 31) + file.getName().hashCode();
+			if (file.isDirectory())
+			{
+				// symlinked folders are skipped since they could loop back on themselves
+				if (recurseIntoFolders && !Files.isSymbolicLink(file.toPath()))
+				{
+					// a folder's own length and modified time don't change when a nested file is edited
+					fingerprint = (fingerprint * 31) + getFolderFingerprint(file, true);
+				}
+			}
+			else
+			{
+				fingerprint = (fingerprint * 31) + file.length();
+				fingerprint = (fingerprint * 31) + file.lastModified();
+			}
+		}
+		return fingerprint;
+	}
+	
+}
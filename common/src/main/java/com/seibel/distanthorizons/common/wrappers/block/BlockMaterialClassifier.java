@@ -0,0 +1,375 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+import com.seibel.distanthorizons.api.enums.rendering.EDhApiBlockMaterial;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SoundType;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Determines which {@link EDhApiBlockMaterial} a block state should use. <br><br>
+ *
+ * Rules are evaluated in order and the first match wins.
+ * Each rule can match on block state properties (tags, specific blocks, sound types, etc.)
+ * and/or on keywords contained in the state's serial string. <br>
+ * All keywords are matched in a single pass over the serial string
+ * using an Aho-Corasick automaton, so adding more keywords doesn't make classification slower. <br><br>
+ *
+ * Mods can register additional keywords via {@link #addKeywordOverride(String, EDhApiBlockMaterial)},
+ * overrides are checked before the built-in rules.
+ *
+ * @see BlockStateWrapper#getMaterialId()
+ */
+public class BlockMaterialClassifier
+{
+	/** each keyword is stored as a bit in a long */
+	public static final int MAX_KEYWORD_COUNT = Long.SIZE;
+	
+	/** keywords are expected to only contain resource location characters */
+	private static final int ALPHABET_SIZE = 128;
+	
+	private static final LinkedHashMap<String, EDhApiBlockMaterial> KEYWORD_OVERRIDES = new LinkedHashMap<>();
+	
+	private static volatile BlockMaterialClassifier instance = null;
+	
+	
+	private final Rule[] rules;
+	
+	/** flattened [node][char] transition table */
+	private final int[] transitions;
+	/** bit mask of every keyword that ends at a given node */
+	private final long[] keywordMaskByNode;
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	private BlockMaterialClassifier(Map<String, EDhApiBlockMaterial> keywordOverrides)
+	{
+		ArrayList<String> keywords = new ArrayList<>();
+		ArrayList<Rule> rules = new ArrayList<>();
+		
+		// overrides
+		for (Map.Entry<String, EDhApiBlockMaterial> entry : keywordOverrides.entrySet())
+		{
+			rules.add(new Rule(entry.getValue(), keywordMask(keywords, entry.getKey()), null));
+		}
+		
+		
+		// built in rules, the order determines precedence
+		rules.add(new Rule(EDhApiBlockMaterial.LEAVES,
+				keywordMask(keywords, "bamboo", "cactus", "chorus_flower", "mushroom"),
+				(state, isLiquid) -> state.is(BlockTags.LEAVES)));
+		rules.add(new Rule(EDhApiBlockMaterial.LAVA, 0L,
+				(state, isLiquid) -> state.is(Blocks.LAVA)));
+		rules.add(new Rule(EDhApiBlockMaterial.WATER, 0L,
+				(state, isLiquid) -> isLiquid || state.is(Blocks.WATER)));
+		
+		Set<SoundType> woodSounds = soundTypeSet(
+				SoundType.WOOD
+				#if MC_VER >= MC_1_19_4
+				, SoundType.CHERRY_WOOD
+				#endif
+				);
+		rules.add(new Rule(EDhApiBlockMaterial.WOOD,
+				keywordMask(keywords, "root"),
+				(state, isLiquid) -> woodSounds.contains(state.getSoundType())));
+		
+		Set<SoundType> metalSounds = soundTypeSet(
+				SoundType.METAL
+				#if MC_VER >= MC_1_19_2
+				, SoundType.COPPER
+				#endif
+				#if MC_VER >= MC_1_20_4
+				, SoundType.COPPER_BULB
+				, SoundType.COPPER_GRATE
+				#endif
+				);
+		rules.add(new Rule(EDhApiBlockMaterial.METAL, 0L,
+				(state, isLiquid) -> metalSounds.contains(state.getSoundType())));
+		
+		rules.add(new Rule(EDhApiBlockMaterial.GRASS, keywordMask(keywords, "grass_block"), null));
+		rules.add(new Rule(EDhApiBlockMaterial.DIRT, keywordMask(keywords, "dirt", "gravel", "mud", "podzol", "mycelium"), null));
+		
+		#if MC_VER >= MC_1_17_1
+		Set<SoundType> deepslateSounds = soundTypeSet(
+				SoundType.DEEPSLATE,
+				SoundType.DEEPSLATE_BRICKS,
+				SoundType.DEEPSLATE_TILES,
+				SoundType.POLISHED_DEEPSLATE);
+		rules.add(new Rule(EDhApiBlockMaterial.DEEPSLATE,
+				keywordMask(keywords, "deepslate"),
+				(state, isLiquid) -> deepslateSounds.contains(state.getSoundType())));
+		#endif
+		
+		// the old if/else chain checked "snow" against the original case of the serial string,
+		// it's now case-insensitive like every other keyword
+		rules.add(new Rule(EDhApiBlockMaterial.SNOW, keywordMask(keywords, "snow"), null));
+		rules.add(new Rule(EDhApiBlockMaterial.SAND, keywordMask(keywords, "sand"), null));
+		rules.add(new Rule(EDhApiBlockMaterial.TERRACOTTA, keywordMask(keywords, "terracotta"), null));
+		rules.add(new Rule(EDhApiBlockMaterial.NETHER_STONE, 0L,
+				(state, isLiquid) -> state.is(BlockTags.BASE_STONE_NETHER)));
+		rules.add(new Rule(EDhApiBlockMaterial.STONE, keywordMask(keywords, "stone", "ore"), null));
+		rules.add(new Rule(EDhApiBlockMaterial.ILLUMINATED, 0L,
+				(state, isLiquid) -> state.getLightEmission() > 0));
+		
+		this.rules = rules.toArray(new Rule[0]);
+		
+		
+		
+		//=====================//
+		// build the automaton //
+		//=====================//
+		
+		ArrayList<int[]> children = new ArrayList<>();
+		ArrayList<Long> outputs = new ArrayList<>();
+		children.add(newChildArray());
+		outputs.add(0L);
+		
+		// trie
+		for (int keywordIndex = 0; keywordIndex < keywords.size(); keywordIndex++)
+		{
+			int node = 0;
+			String keyword = keywords.get(keywordIndex);
+			for (int i = 0; i < keyword.length(); i++)
+			{
+				char c = keyword.charAt(i);
+				if (children.get(node)[c] == -1)
+				{
+					children.get(node)[c] = children.size();
+					children.add(newChildArray());
+					outputs.add(0L);
+				}
+				node = children.get(node)[c];
+			}
+			outputs.set(node, outputs.get(node) | (1L << keywordIndex));
+		}
+		
+		// failure links, converting the trie into a complete DFA
+		int nodeCount = children.size();
+		this.transitions = new int[nodeCount * ALPHABET_SIZE];
+		this.keywordMaskByNode = new long[nodeCount];
+		int[] failure = new int[nodeCount];
+		
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < ALPHABET_SIZE; c++)
+		{
+			int child = children.get(0)[c];
+			if (child == -1)
+			{
+				this.transitions[c] = 0;
+			}
+			else
+			{
+				this.transitions[c] = child;
+				failure[child] = 0;
+				queue.add(child);
+			}
+		}
+		this.keywordMaskByNode[0] = outputs.get(0);
+		
+		while (!queue.isEmpty())
+		{
+			int node = queue.poll();
+			this.keywordMaskByNode[node] = outputs.get(node) | this.keywordMaskByNode[failure[node]];
+			
+			for (int c = 0; c < ALPHABET_SIZE; c++)
+			{
+				int child = children.get(node)[c];
+				if (child == -1)
+				{
+					this.transitions[(node * ALPHABET_SIZE) + c] = this.transitions[(failure[node] * ALPHABET_SIZE) + c];
+				}
+				else
+				{
+					this.transitions[(node * ALPHABET_SIZE) + c] = child;
+					failure[child] = this.transitions[(failure[node] * ALPHABET_SIZE) + c];
+					queue.add(child);
+				}
+			}
+		}
+	}
+	private static int[] newChildArray()
+	{
+		int[] array = new int[ALPHABET_SIZE];
+		Arrays.fill(array, -1);
+		return array;
+	}
+	
+	/** adds the given keywords to the list and returns a mask containing each of their bits */
+	private static long keywordMask(ArrayList<String> keywords, String... newKeywords)
+	{
+		long mask = 0L;
+		for (String keyword : newKeywords)
+		{
+			int index = keywords.indexOf(keyword);
+			if (index == -1)
+			{
+				if (keywords.size() >= MAX_KEYWORD_COUNT)
+				{
+					throw new IllegalStateException("Too many block material keywords, at most ["+MAX_KEYWORD_COUNT+"] are supported.");
+				}
+				
+				index = keywords.size();
+				keywords.add(keyword);
+			}
+			mask |= (1L << index);
+		}
+		return mask;
+	}
+	
+	private static Set<SoundType> soundTypeSet(SoundType... soundTypes)
+	{
+		Set<SoundType> set = Collections.newSetFromMap(new IdentityHashMap<>());
+		Collections.addAll(set, soundTypes);
+		return set;
+	}
+	
+	
+	
+	//===========//
+	// overrides //
+	//===========//
+	
+	/**
+	 * Any block state whose serial string contains the given keyword will use the given material,
+	 * overriding the built-in rules. <br>
+	 * Should be called before any {@link BlockStateWrapper}s are created,
+	 * existing wrappers won't be re-classified.
+	 *
+	 * @throws IllegalArgumentException if the keyword is empty or contains non-ASCII characters
+	 */
+	public static synchronized void addKeywordOverride(String keyword, EDhApiBlockMaterial material) throws IllegalArgumentException
+	{
+		String lowerCaseKeyword = keyword.toLowerCase();
+		if (lowerCaseKeyword.isEmpty() || !lowerCaseKeyword.chars().allMatch((c) -> c < ALPHABET_SIZE))
+		{
+			throw new IllegalArgumentException("Block material keyword ["+keyword+"] must be a non-empty ASCII string.");
+		}
+		
+		KEYWORD_OVERRIDES.put(lowerCaseKeyword, material);
+		instance = null;
+	}
+	
+	private static BlockMaterialClassifier getInstance()
+	{
+		BlockMaterialClassifier classifier = instance;
+		if (classifier == null)
+		{
+			synchronized (BlockMaterialClassifier.class)
+			{
+				classifier = instance;
+				if (classifier == null)
+				{
+					classifier = new BlockMaterialClassifier(KEYWORD_OVERRIDES);
+					instance = classifier;
+				}
+			}
+		}
+		return classifier;
+	}
+	
+	
+	
+	//================//
+	// classification //
+	//================//
+	
+	/**
+	 * @param isLiquid should match {@link BlockStateWrapper#isLiquid()}
+	 * @return {@link EDhApiBlockMaterial#AIR} if the block state is null
+	 */
+	public static EDhApiBlockMaterial classify(@Nullable BlockState blockState, String serialString, boolean isLiquid)
+	{
+		if (blockState == null)
+		{
+			return EDhApiBlockMaterial.AIR;
+		}
+		
+		BlockMaterialClassifier classifier = getInstance();
+		long keywordMask = classifier.matchKeywords(serialString);
+		for (Rule rule : classifier.rules)
+		{
+			if ((keywordMask & rule.keywordMask) != 0
+				|| (rule.statePredicate != null && rule.statePredicate.test(blockState, isLiquid)))
+			{
+				return rule.material;
+			}
+		}
+		
+		return EDhApiBlockMaterial.UNKNOWN;
+	}
+	
+	/** @return a mask containing the bit of every keyword in the given string, case-insensitive */
+	private long matchKeywords(String string)
+	{
+		long mask = 0L;
+		int node = 0;
+		for (int i = 0; i < string.length(); i++)
+		{
+			char c = Character.toLowerCase(string.charAt(i));
+			node = (c < ALPHABET_SIZE) ? this.transitions[(node * ALPHABET_SIZE) + c] : 0;
+			mask |= this.keywordMaskByNode[node];
+		}
+		return mask;
+	}
+	
+	
+	
+	//================//
+	// helper classes //
+	//================//
+	
+	@FunctionalInterface
+	private interface IStatePredicate
+	{
+		boolean test(BlockState blockState, boolean isLiquid);
+	}
+	
+	private static class Rule
+	{
+		public final EDhApiBlockMaterial material;
+		public final long keywordMask;
+		@Nullable
+		public final IStatePredicate statePredicate;
+		
+		public Rule(EDhApiBlockMaterial material, long keywordMask, @Nullable IStatePredicate statePredicate)
+		{
+			this.material = material;
+			this.keywordMask = keywordMask;
+			this.statePredicate = statePredicate;
+		}
+	}
+	
+}
@@ -0,0 +1,380 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
+#if MC_VER < MC_1_19_4
+import net.minecraft.core.Registry;
+#else
+import net.minecraft.core.registries.BuiltInRegistries;
+#endif
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.properties.Property;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.LongConsumer;
+
+/**
+ * Persists which {@link Block#BLOCK_STATE_REGISTRY} ID each {@link BlockStateWrapper}
+ * serial string resolved to, so later sessions can skip parsing the string,
+ * looking up the block and matching its properties. <br><br>
+ *
+ * The dictionary is only used if the block state registry's fingerprint
+ * matches the one it was saved with, if mods were added, removed, or updated
+ * serial strings are resolved the normal way and the dictionary is rebuilt. <br><br>
+ * 
+ * There is one dictionary file per world, it's read when the world's first level loads
+ * and written when the world's last level unloads.
+ * The in-memory dictionary only depends on the registry, so it's shared by every loaded world
+ * and dropped once no levels are loaded. <br><br>
+ * 
+ * Forge and NeoForge can re-assign block state IDs when joining a server,
+ * so the fingerprint is re-calculated (off the calling thread) every time a level loads.
+ *
+ * @see BlockStateWrapper#deserialize(String, ILevelWrapper)
+ */
+public class BlockStateDictionary
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	public static final String FILE_NAME = "blockStateDictionary.dat";
+	/** should be incremented whenever the file format or serial string format changes */
+	private static final int FORMAT_VERSION = 1;
+	
+	private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long FNV_PRIME = 0x100000001B3L;
+	
+	private static final ConcurrentHashMap<String, Integer> STATE_ID_BY_SERIAL_STRING = new ConcurrentHashMap<>();
+	/** the loaded levels in each world, keyed by the world's dictionary file, synchronized on itself */
+	private static final HashMap<File, HashSet<ILevelWrapper>> LOADED_LEVELS_BY_FILE = new HashMap<>();
+	/** which world file each loaded level belongs to, synchronized on {@link BlockStateDictionary#LOADED_LEVELS_BY_FILE} */
+	private static final HashMap<ILevelWrapper, File> FILE_BY_LOADED_LEVEL = new HashMap<>();
+	
+	/** lazily computed since the registry must be frozen first, re-calculated by {@link BlockStateDictionary#refreshRegistryFingerprint()} */
+	private static Long registryFingerprint = null;
+	/** 
+	 * false until {@link BlockStateDictionary#refreshRegistryFingerprint()} has run once, 
+	 * since the fingerprint may be lazily computed by another thread before the first refresh 
+	 */
+	private static boolean registryRefreshed = false;
+	/** given the new fingerprint whenever the registry changes after it was first fingerprinted */
+	private static final CopyOnWriteArrayList<LongConsumer> REGISTRY_CHANGE_LISTENERS = new CopyOnWriteArrayList<>();
+	
+	
+	
+	//=========//
+	// getters //
+	//=========//
+	
+	/** @return null if the serial string isn't in the dictionary */
+	@Nullable
+	public static BlockState tryGetBlockState(String serialString)
+	{
+		Integer stateId = STATE_ID_BY_SERIAL_STRING.get(serialString);
+		return (stateId != null) ? Block.BLOCK_STATE_REGISTRY.byId(stateId) : null;
+	}
+	
+	
+	
+	//===============//
+	// file handling //
+	//===============//
+	
+	/** 
+	 * Re-checks the block state registry and, if this is the first level loaded for its world, 
+	 * loads the world's dictionary. Both are done on a file handler thread. <br>
+	 * The dictionary isn't loaded if the saved registry fingerprint doesn't match. 
+	 * 
+	 * @param worldFolder the folder shared by every level in the level's world, 
+	 *                    null if the world doesn't have a save folder yet
+	 */
+	public static void onLevelLoad(ILevelWrapper levelWrapper, @Nullable File worldFolder)
+	{
+		File file = (worldFolder != null) ? new File(worldFolder, FILE_NAME) : null;
+		boolean firstLevelInWorld = false;
+		if (file != null)
+		{
+			synchronized (LOADED_LEVELS_BY_FILE)
+			{
+				HashSet<ILevelWrapper> levels = LOADED_LEVELS_BY_FILE.computeIfAbsent(file, (newFile) -> new HashSet<>());
+				firstLevelInWorld = levels.isEmpty();
+				levels.add(levelWrapper);
+				FILE_BY_LOADED_LEVEL.put(levelWrapper, file);
+			}
+		}
+		
+		boolean readFile = firstLevelInWorld;
+		runAsync(() ->
+		{
+			// hashing the registry takes a while with large mod packs, so it isn't done on the level loading thread
+			refreshRegistryFingerprint();
+			if (readFile)
+			{
+				tryRead(file);
+			}
+		});
+	}
+	private static void tryRead(File file)
+	{
+		if (!file.exists())
+		{
+			return;
+		}
+		
+		try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+		{
+			int formatVersion = inputStream.readInt();
+			long fingerprint = inputStream.readLong();
+			if (formatVersion != FORMAT_VERSION || fingerprint != getRegistryFingerprint())
+			{
+				LOGGER.info("Block state dictionary ["+file+"] is out of date, it will be rebuilt.");
+				return;
+			}
+			
+			int count = inputStream.readInt();
+			HashMap<String, Integer> stateIdBySerialString = new HashMap<>(count);
+			for (int i = 0; i < count; i++)
+			{
+				String serialString = inputStream.readUTF();
+				int stateId = inputStream.readInt();
+				stateIdBySerialString.put(serialString, stateId);
+			}
+			
+			synchronized (LOADED_LEVELS_BY_FILE)
+			{
+				// the world may have been closed while the file was being read
+				if (LOADED_LEVELS_BY_FILE.containsKey(file))
+				{
+					stateIdBySerialString.forEach(STATE_ID_BY_SERIAL_STRING::putIfAbsent);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			LOGGER.warn("Unable to read block state dictionary ["+file+"], error: ["+e.getMessage()+"].", e);
+		}
+	}
+	
+	/** 
+	 * If this was the last loaded level in its world the world's dictionary is saved, 
+	 * once no levels are loaded the in-memory dictionary is dropped. 
+	 */
+	public static void onLevelUnload(ILevelWrapper levelWrapper)
+	{
+		synchronized (LOADED_LEVELS_BY_FILE)
+		{
+			File file = FILE_BY_LOADED_LEVEL.remove(levelWrapper);
+			if (file != null)
+			{
+				HashSet<ILevelWrapper> levels = LOADED_LEVELS_BY_FILE.get(file);
+				levels.remove(levelWrapper);
+				if (!levels.isEmpty())
+				{
+					// other levels in this world (IE other dimensions) still need the dictionary
+					return;
+				}
+				
+				LOADED_LEVELS_BY_FILE.remove(file);
+				save(file);
+			}
+			
+			if (LOADED_LEVELS_BY_FILE.isEmpty())
+			{
+				STATE_ID_BY_SERIAL_STRING.clear();
+			}
+		}
+	}
+	
+	/** Saves every block state that has been wrapped so far. */
+	private static void save(File file)
+	{
+		ArrayList<BlockStateWrapper> wrappers = new ArrayList<>(BlockStateWrapper.WRAPPER_BY_BLOCK_STATE.values());
+		File tempFile = new File(file.getPath() + ".tmp");
+		try
+		{
+			Files.createDirectories(file.getParentFile().toPath());
+			
+			try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				outputStream.writeInt(FORMAT_VERSION);
+				outputStream.writeLong(getRegistryFingerprint());
+				outputStream.writeInt(wrappers.size());
+				for (BlockStateWrapper wrapper : wrappers)
+				{
+					outputStream.writeUTF(wrapper.getSerialString());
+					outputStream.writeInt(wrapper.getStateId());
+				}
+			}
+			
+			// replace the old file only after the new one has been fully written
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			LOGGER.warn("Unable to save block state dictionary ["+file+"], error: ["+e.getMessage()+"].", e);
+		}
+	}
+	
+	
+	
+	//=========//
+	// helpers //
+	//=========//
+	
+	/**
+	 * Changes if blocks are added, removed, re-ordered, re-mapped, or gain/lose properties or property values,
+	 * any of which may change the IDs MC assigns to each block state.
+	 */
+	static synchronized long getRegistryFingerprint()
+	{
+		if (registryFingerprint == null)
+		{
+			registryFingerprint = calculateRegistryFingerprint();
+		}
+		return registryFingerprint;
+	}
+	/** 
+	 * Should be called whenever the registry may have changed (IE when a level loads). <br>
+	 * If the fingerprint changed the in-memory dictionary is dropped and the wrappers' state IDs are updated.
+	 */
+	static void refreshRegistryFingerprint()
+	{
+		long newFingerprint = calculateRegistryFingerprint();
+		if (trySetRegistryFingerprint(newFingerprint))
+		{
+			// listeners are called outside the lock since they may need to lock their own caches
+			for (LongConsumer listener : REGISTRY_CHANGE_LISTENERS)
+			{
+				listener.accept(newFingerprint);
+			}
+		}
+	}
+	/** @return true if the registry changed since it was last fingerprinted */
+	private static synchronized boolean trySetRegistryFingerprint(long newFingerprint)
+	{
+		if (registryRefreshed && registryFingerprint != null && registryFingerprint == newFingerprint)
+		{
+			return false;
+		}
+		registryRefreshed = true;
+		
+		boolean changed = (registryFingerprint != null && registryFingerprint != newFingerprint);
+		if (changed)
+		{
+			LOGGER.info("Block state registry changed, clearing cached block state IDs.");
+			STATE_ID_BY_SERIAL_STRING.clear();
+		}
+		registryFingerprint = newFingerprint;
+		
+		// also done the first time since wrappers may have been created before the registry was re-mapped
+		BlockStateWrapper.onRegistryChanged();
+		return changed;
+	}
+	/** 
+	 * For caches indexed by block state ID. <br>
+	 * The listener is called with the new fingerprint whenever a refresh finds the registry has changed. 
+	 */
+	public static void addRegistryChangeListener(LongConsumer listener) { REGISTRY_CHANGE_LISTENERS.add(listener); }
+	/** hashes every state's block registry key and full property values in state ID order */
+	private static long calculateRegistryFingerprint()
+	{
+		int stateCount = Block.BLOCK_STATE_REGISTRY.size();
+		long fingerprint = hash(FNV_OFFSET_BASIS, stateCount);
+		for (int stateId = 0; stateId < stateCount; stateId++)
+		{
+			BlockState state = Block.BLOCK_STATE_REGISTRY.byId(stateId);
+			if (state == null)
+			{
+				fingerprint = hash(fingerprint, -1);
+				continue;
+			}
+			
+			// the registry key is used since mods can override description IDs
+			#if MC_VER < MC_1_19_4
+			fingerprint = hash(fingerprint, String.valueOf(Registry.BLOCK.getKey(state.getBlock())));
+			#else
+			fingerprint = hash(fingerprint, String.valueOf(BuiltInRegistries.BLOCK.getKey(state.getBlock())));
+			#endif
+			for (Map.Entry<Property<?>, Comparable<?>> entry : state.getValues().entrySet())
+			{
+				fingerprint = hash(fingerprint, entry.getKey().getName());
+				fingerprint = hash(fingerprint, getPropertyValueName(entry.getKey(), entry.getValue()));
+			}
+		}
+		return fingerprint;
+	}
+	@SuppressWarnings("unchecked")
+	private static <T extends Comparable<T>> String getPropertyValueName(Property<T> property, Comparable<?> value) { return property.getName((T) value); }
+	
+	/** FNV-1a, used instead of {@link String#hashCode()} since it has fewer collisions over long sequences */
+	private static long hash(long hash, String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			hash = hash(hash, value.charAt(i));
+		}
+		// separator so "ab"+"c" and "a"+"bc" hash differently
+		return hash(hash, 0);
+	}
+	private static long hash(long hash, int value) { return (hash ^ value) * FNV_PRIME; }
+	
+	/** runs inline if the file handler executor isn't available */
+	private static void runAsync(Runnable runnable)
+	{
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor != null)
+		{
+			try
+			{
+				executor.execute(runnable);
+				return;
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down
+			}
+		}
+		
+		runnable.run();
+	}
+	
+}
@@ -29,13 +29,11 @@ import com.seibel.distanthorizons.core.wrapperInterfaces.block.IBlockStateWrappe
 
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 import net.minecraft.resources.ResourceLocation;
-import net.minecraft.tags.BlockTags;
 import net.minecraft.world.level.block.BeaconBeamBlock;
 import net.minecraft.world.level.block.Block;
-import net.minecraft.world.level.block.Blocks;
-import net.minecraft.world.level.block.SoundType;
 import net.minecraft.world.level.block.state.BlockState;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.io.IOException;
@@ -74,15 +72,44 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	
     public static final ConcurrentHashMap<BlockState, BlockStateWrapper> WRAPPER_BY_BLOCK_STATE = new ConcurrentHashMap<>();
     public static final ConcurrentHashMap<String, BlockStateWrapper> WRAPPER_BY_RESOURCE_LOCATION = new ConcurrentHashMap<>();
+	/** 
+	 * Indexed by {@link Block#BLOCK_STATE_REGISTRY} ID, allows ID based hot paths to skip looking up the {@link BlockState}. <br>
+	 * Lazily created since the registry must be frozen before its size is known,
+	 * and re-built whenever the registry's IDs change (see {@link BlockStateWrapper#onRegistryChanged()}).
+	 * Air slots are filled when the array is built, other slots are filled as their wrappers are created.
+	 * {@link BlockStateWrapper#WRAPPER_BY_BLOCK_STATE} is still the source of truth.
+	 */
+	private static volatile BlockStateWrapper[] wrapperByStateId = null;
+	/** 
+	 * Indexed by {@link Block#BLOCK_STATE_REGISTRY} ID, each state's FLAG_ values
+	 * so {@link BlockStateWrapper#getFlags(int, ILevelWrapper)} only has to read an int. <br>
+	 * Built and filled alongside {@link BlockStateWrapper#wrapperByStateId},
+	 * slots without {@link BlockStateWrapper#FLAGS_CALCULATED} haven't been filled yet.
+	 */
+	private static volatile int[] flagsByStateId = null;
 	
 	public static final String AIR_STRING = "AIR";
-	public static final BlockStateWrapper AIR = new BlockStateWrapper(null, null);
+	public static final BlockStateWrapper AIR = new BlockStateWrapper(null, null, null);
 	
 	public static final String DIRT_RESOURCE_LOCATION_STRING = "minecraft:dirt";
 	
+	// property flags, see getFlags() //
+	public static final int FLAG_AIR = 1;
+	public static final int FLAG_SOLID = 1 << 1;
+	public static final int FLAG_LIQUID = 1 << 2;
+	public static final int FLAG_EMISSIVE = 1 << 3;
+	public static final int FLAG_BEACON = 1 << 4;
+	public static final int FLAG_BEACON_BASE = 1 << 5;
+	public static final int FLAG_BEACON_TINT = 1 << 6;
+	/** only used internally by {@link BlockStateWrapper#flagsByStateId} to mark filled slots */
+	private static final int FLAGS_CALCULATED = 1 << 31;
+	
 	public static HashSet<IBlockStateWrapper> rendererIgnoredBlocks = null;
 	public static HashSet<IBlockStateWrapper> rendererIgnoredCaveBlocks = null;
 	
+	/** @see BlockStateWrapper#getStateByPropertiesString(Block) */
+	private static final ConcurrentHashMap<Block, Map<String, BlockState>> STATE_BY_PROPERTIES_STRING_BY_BLOCK = new ConcurrentHashMap<>();
+	
 	/** keep track of broken blocks so we don't log every time */
 	private static final HashSet<ResourceLocation> BrokenResourceLocations = new HashSet<>();
 	
@@ -91,21 +118,22 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	// properties //
 	
 	public final BlockState blockState;
+	/** see {@link BlockStateWrapper#getStateId()}, only changes if the registry's IDs are re-mapped */
+	private volatile int stateId;
 	/** technically final, but since it requires a method call to generate it can't be marked as such */
 	private String serialString;
 	private final int hashCode;
 	/** 
-	 * Cached opacity value, -1 if not populated. <br>
-	 * Should be between {@link LodUtil#BLOCK_FULLY_OPAQUE} and {@link LodUtil#BLOCK_FULLY_OPAQUE}
+	 * Packed FLAG_ values, computed once in the constructor 
+	 * so hot paths don't have to look at MC's collision shapes or fluid states.
 	 */
-	private int opacity = -1;
+	private final int flags;
+	/** Should be between {@link LodUtil#BLOCK_FULLY_OPAQUE} and {@link LodUtil#BLOCK_FULLY_OPAQUE} */
+	private final byte opacity;
+	private final byte lightEmission;
 	/** used by the Iris shader mod to determine how each LOD should be rendered */
 	private byte blockMaterialId = 0;
 	
-	private final boolean isBeaconBlock; 
-	private final boolean isBeaconBaseBlock;
-	/** null if this block can't tint beacons */
-	private final Color beaconTintColor; 
 	private final Color mapColor;
 	
 	
@@ -114,7 +142,9 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	// constructors //
 	//==============//
 	
-	public static BlockStateWrapper fromBlockState(BlockState blockState, ILevelWrapper levelWrapper)
+	public static BlockStateWrapper fromBlockState(BlockState blockState, ILevelWrapper levelWrapper) { return fromBlockState(blockState, levelWrapper, (String) null); }
+	/** @param knownSerialString if not null this will be used instead of serializing the block state */
+	private static BlockStateWrapper fromBlockState(BlockState blockState, ILevelWrapper levelWrapper, @Nullable String knownSerialString)
 	{
 		if (blockState == null || blockState.isAir())
 		{
@@ -122,18 +152,110 @@ public class BlockStateWrapper implements IBlockStateWrapper
 		}
 		
 		
-		if (WRAPPER_BY_BLOCK_STATE.containsKey(blockState))
+		// block states hash by identity, so this single lookup is as cheap as looking up the state's ID would be
+		BlockStateWrapper wrapper = WRAPPER_BY_BLOCK_STATE.get(blockState);
+		if (wrapper != null)
 		{
-			return WRAPPER_BY_BLOCK_STATE.get(blockState);
+			return wrapper;
 		}
-		else
+		
+		
+		BlockStateWrapper newWrapper = new BlockStateWrapper(blockState, levelWrapper, knownSerialString);
+		
+		// another thread may have created the wrapper in the meantime
+		wrapper = WRAPPER_BY_BLOCK_STATE.putIfAbsent(blockState, newWrapper);
+		if (wrapper == null)
+		{
+			wrapper = newWrapper;
+			
+			BlockStateWrapper[] wrapperByStateId = getWrapperByStateIdArray();
+			int[] flagsByStateId = BlockStateWrapper.flagsByStateId;
+			if (wrapper.stateId >= 0 && wrapper.stateId < wrapperByStateId.length)
+			{
+				wrapperByStateId[wrapper.stateId] = wrapper;
+				if (flagsByStateId != null && wrapper.stateId < flagsByStateId.length)
+				{
+					flagsByStateId[wrapper.stateId] = wrapper.flags | FLAGS_CALCULATED;
+				}
+			}
+		}
+		return wrapper;
+	}
+	
+	/**
+	 * Equivalent to {@link BlockStateWrapper#fromBlockState(BlockState, ILevelWrapper)}
+	 * but accepts a {@link Block#BLOCK_STATE_REGISTRY} ID, 
+	 * which allows hot loops to pass around ints instead of {@link BlockState}s.
+	 */
+	public static BlockStateWrapper fromBlockStateId(int stateId, ILevelWrapper levelWrapper)
+	{
+		BlockStateWrapper[] wrapperByStateId = getWrapperByStateIdArray();
+		if (stateId >= 0 && stateId < wrapperByStateId.length)
 		{
-			BlockStateWrapper newWrapper = new BlockStateWrapper(blockState, levelWrapper);
-			WRAPPER_BY_BLOCK_STATE.put(blockState, newWrapper);
-			return newWrapper;
+			BlockStateWrapper wrapper = wrapperByStateId[stateId];
+			if (wrapper != null)
+			{
+				return wrapper;
+			}
 		}
+		
+		return fromBlockState(Block.BLOCK_STATE_REGISTRY.byId(stateId), levelWrapper);
 	}
 	
+	private static BlockStateWrapper[] getWrapperByStateIdArray()
+	{
+		BlockStateWrapper[] wrapperByStateId = BlockStateWrapper.wrapperByStateId;
+		if (wrapperByStateId == null)
+		{
+			wrapperByStateId = buildWrapperByStateIdArray();
+		}
+		return wrapperByStateId;
+	}
+	private static synchronized BlockStateWrapper[] buildWrapperByStateIdArray()
+	{
+		// another thread may have built the array while we were waiting
+		BlockStateWrapper[] wrapperByStateId = BlockStateWrapper.wrapperByStateId;
+		if (wrapperByStateId != null)
+		{
+			return wrapperByStateId;
+		}
+		
+		wrapperByStateId = new BlockStateWrapper[Block.BLOCK_STATE_REGISTRY.size()];
+		int[] flagsByStateId = new int[wrapperByStateId.length];
+		for (int stateId = 0; stateId < wrapperByStateId.length; stateId++)
+		{
+			BlockState blockState = Block.BLOCK_STATE_REGISTRY.byId(stateId);
+			BlockStateWrapper wrapper = (blockState == null || blockState.isAir()) ? AIR : WRAPPER_BY_BLOCK_STATE.get(blockState);
+			wrapperByStateId[stateId] = wrapper;
+			flagsByStateId[stateId] = (wrapper != null) ? (wrapper.flags | FLAGS_CALCULATED) : 0;
+		}
+		
+		// flags are published first so they're never missing when the wrapper array is present
+		BlockStateWrapper.flagsByStateId = flagsByStateId;
+		BlockStateWrapper.wrapperByStateId = wrapperByStateId;
+		return wrapperByStateId;
+	}
+	/** 
+	 * Should be called when the {@link Block#BLOCK_STATE_REGISTRY}'s IDs may have changed 
+	 * (IE Forge/NeoForge re-mapping IDs when joining a server). <br>
+	 * Updates each existing wrapper's ID and rebuilds the ID lookup array.
+	 * 
+	 * @see BlockStateDictionary#refreshRegistryFingerprint() 
+	 */
+	static synchronized void onRegistryChanged()
+	{
+		for (BlockStateWrapper wrapper : WRAPPER_BY_BLOCK_STATE.values())
+		{
+			wrapper.stateId = Block.BLOCK_STATE_REGISTRY.getId(wrapper.blockState);
+		}
+		
+		BlockStateWrapper.wrapperByStateId = null;
+		buildWrapperByStateIdArray();
+	}
+	
+	/** @return this block state's {@link Block#BLOCK_STATE_REGISTRY} ID, 0 for air */
+	public int getStateId() { return this.stateId; }
+	
 	/** 
 	 * Can be faster than {@link BlockStateWrapper#fromBlockState(BlockState, ILevelWrapper)} 
 	 * in cases where the same block state is expected to be referenced multiple times.
@@ -154,12 +276,12 @@ public class BlockStateWrapper implements IBlockStateWrapper
 		}
 	}
 	
-	private BlockStateWrapper(BlockState blockState, ILevelWrapper levelWrapper)
+	private BlockStateWrapper(BlockState blockState, ILevelWrapper levelWrapper, @Nullable String knownSerialString)
 	{
 		this.blockState = blockState;
-		this.serialString = this.serialize(levelWrapper);
+		this.stateId = (blockState != null) ? Block.BLOCK_STATE_REGISTRY.getId(blockState) : 0;
+		this.serialString = (knownSerialString != null) ? knownSerialString : this.serialize(levelWrapper);
 		this.hashCode = Objects.hash(this.serialString);
-		this.blockMaterialId = this.calculateEDhApiBlockMaterialId().index;
 		
 		// beacon blocks
 		String lowercaseSerial = this.serialString.toLowerCase();
@@ -173,29 +295,26 @@ public class BlockStateWrapper implements IBlockStateWrapper
 				break;
 			}
 		}
-		this.isBeaconBaseBlock = isBeaconBaseBlock;
-		this.isBeaconBlock = lowercaseSerial.contains("minecraft:beacon");
+		boolean isBeaconBlock = lowercaseSerial.contains("minecraft:beacon");
 		
-		// beacon tint color
-		Color beaconTintColor = null;
-		if (this.blockState != null
-			// beacon blocks also show up here, but since they block the beacon beam we don't want their color		
-			&& !this.isBeaconBlock)
-		{
-			Block block = this.blockState.getBlock();
-			if (block instanceof BeaconBeamBlock)
-			{
-				int colorInt;
-				#if MC_VER <= MC_1_19_4
-				colorInt = ((BeaconBeamBlock) block).getColor().getMaterialColor().col;
-				#else 
-				colorInt = ((BeaconBeamBlock) block).getColor().getMapColor().col;
-				#endif
-				
-				beaconTintColor = ColorUtil.toColorObjRGB(colorInt);
-			}
-		}
-		this.beaconTintColor = beaconTintColor;
+		
+		// block properties
+		int flags = 0;
+		flags |= isAirBlockState(this.blockState) ? FLAG_AIR : 0;
+		flags |= computeIsSolid(this.blockState) ? FLAG_SOLID : 0;
+		flags |= computeIsLiquid(this.blockState) ? FLAG_LIQUID : 0;
+		flags |= (this.blockState != null && this.blockState.getLightEmission() != 0) ? FLAG_EMISSIVE : 0;
+		flags |= isBeaconBlock ? FLAG_BEACON : 0;
+		flags |= isBeaconBaseBlock ? FLAG_BEACON_BASE : 0;
+		// beacon blocks can also tint, but since they block the beacon beam we don't want their color
+		flags |= (!isBeaconBlock && computeBeaconTintColor(this.blockState) != null) ? FLAG_BEACON_TINT : 0;
+		this.flags = flags;
+		
+		this.opacity = (byte) computeOpacity(this.blockState, (flags & FLAG_LIQUID) != 0);
+		this.lightEmission = (byte) ((this.blockState != null) ? this.blockState.getLightEmission() : 0);
+		
+		// must be calculated after the flags since it uses isLiquid()
+		this.blockMaterialId = this.calculateEDhApiBlockMaterialId().index;
 		
 		
 		int mcColor = 0;
@@ -341,49 +460,61 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	//=================//
 	
 	@Override
-	public int getOpacity()
+	public int getOpacity() { return this.opacity; }
+	private static int computeOpacity(BlockState blockState, boolean isLiquid)
 	{
-		// use the cached opacity value if possible
-		if (this.opacity != -1)
-		{
-			return this.opacity;
-		}
-		
-		
 		// this method isn't perfect, but works well enough for our use case
-		int opacity;
-		if (this.isAir())
+		if (isAirBlockState(blockState))
 		{
-			opacity = LodUtil.BLOCK_FULLY_TRANSPARENT;
+			return LodUtil.BLOCK_FULLY_TRANSPARENT;
 		}
-		else if (this.isLiquid() && !this.blockState.canOcclude())
+		else if (isLiquid && !blockState.canOcclude())
 		{
 			// probably not a waterlogged block (which should block light entirely)
 			
 			// +1 to indicate that the block is translucent (in between transparent and opaque) 
-			opacity = LodUtil.BLOCK_FULLY_TRANSPARENT + 1;
+			return LodUtil.BLOCK_FULLY_TRANSPARENT + 1;
 		}
 		#if MC_VER < MC_1_21_3
-		else if (this.blockState.propagatesSkylightDown(EmptyBlockGetter.INSTANCE, BlockPos.ZERO))
+		else if (blockState.propagatesSkylightDown(EmptyBlockGetter.INSTANCE, BlockPos.ZERO))
 		#else
-		else if (this.blockState.propagatesSkylightDown())
+		else if (blockState.propagatesSkylightDown())
 		#endif
 		{
-			opacity = LodUtil.BLOCK_FULLY_TRANSPARENT;
+			return LodUtil.BLOCK_FULLY_TRANSPARENT;
 		}
 		else
 		{
 			// default for all other blocks
-			opacity = LodUtil.BLOCK_FULLY_OPAQUE;
+			return LodUtil.BLOCK_FULLY_OPAQUE;
 		}
-		
-		
-		this.opacity = opacity;
-		return this.opacity;
 	}
 	
 	@Override
-	public int getLightEmission() { return (this.blockState != null) ? this.blockState.getLightEmission() : 0; }
+	public int getLightEmission() { return this.lightEmission; }
+	
+	/** @return this block's FLAG_ values, IE {@link BlockStateWrapper#FLAG_SOLID} */
+	public int getFlags() { return this.flags; }
+	/** 
+	 * Allows the LOD builder to classify blocks using only their {@link Block#BLOCK_STATE_REGISTRY} ID. <br>
+	 * Reads from a dense array, only states that haven't been wrapped yet need to go through {@link BlockStateWrapper#fromBlockStateId}.
+	 * @see BlockStateWrapper#getFlags() 
+	 */
+	public static int getFlags(int stateId, ILevelWrapper levelWrapper) 
+	{
+		int[] flagsByStateId = BlockStateWrapper.flagsByStateId;
+		if (flagsByStateId != null && stateId >= 0 && stateId < flagsByStateId.length)
+		{
+			int flags = flagsByStateId[stateId];
+			if ((flags & FLAGS_CALCULATED) != 0)
+			{
+				return flags & ~FLAGS_CALCULATED;
+			}
+		}
+		
+		// also fills the flag slot
+		return fromBlockStateId(stateId, levelWrapper).flags; 
+	}
 	
 	@Override
 	public String getSerialString() { return this.serialString; }
@@ -414,50 +545,72 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	public Object getWrappedMcObject() { return this.blockState; }
 	
 	@Override
-	public boolean isAir() { return this.isAir(this.blockState); }
-	public boolean isAir(BlockState blockState) { return blockState == null || blockState.isAir(); }
+	public boolean isAir() { return (this.flags & FLAG_AIR) != 0; }
+	public boolean isAir(BlockState blockState) { return isAirBlockState(blockState); }
+	/** used by the static flag helpers, which run before the wrapper is fully constructed */
+	private static boolean isAirBlockState(BlockState blockState) { return blockState == null || blockState.isAir(); }
 	
 	@Override
-	public boolean isSolid()
+	public boolean isSolid() { return (this.flags & FLAG_SOLID) != 0; }
+	private static boolean computeIsSolid(BlockState blockState)
 	{
-		if (this.isAir())
+		if (isAirBlockState(blockState))
 		{
 			return false;
 		}
 		
         #if MC_VER < MC_1_20_1
-		return this.blockState.getMaterial().isSolid();
+		return blockState.getMaterial().isSolid();
         #else
-		return !this.blockState.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).isEmpty();
+		return !blockState.getCollisionShape(EmptyBlockGetter.INSTANCE, BlockPos.ZERO).isEmpty();
         #endif
 	}
 	
 	@Override
-	public boolean isLiquid()
+	public boolean isLiquid() { return (this.flags & FLAG_LIQUID) != 0; }
+	private static boolean computeIsLiquid(BlockState blockState)
 	{
-		if (this.isAir())
+		if (isAirBlockState(blockState))
 		{
 			return false;
 		}
 		
         #if MC_VER < MC_1_20_1
-		return this.blockState.getMaterial().isLiquid() || !this.blockState.getFluidState().isEmpty();
+		return blockState.getMaterial().isLiquid() || !blockState.getFluidState().isEmpty();
         #else
-		return !this.blockState.getFluidState().isEmpty();
+		return !blockState.getFluidState().isEmpty();
         #endif
 	}
 	
 	@Override
-	public boolean isBeaconBlock() { return this.isBeaconBlock; }
+	public boolean isBeaconBlock() { return (this.flags & FLAG_BEACON) != 0; }
 	@Override
-	public boolean isBeaconBaseBlock() { return this.isBeaconBaseBlock; }
+	public boolean isBeaconBaseBlock() { return (this.flags & FLAG_BEACON_BASE) != 0; }
 	@Override
-	public boolean isBeaconTintBlock() { return this.beaconTintColor != null; }
+	public boolean isBeaconTintBlock() { return (this.flags & FLAG_BEACON_TINT) != 0; }
 	
 	@Override
 	public Color getMapColor() { return this.mapColor; }
+	/** @return null if this block can't tint beacons */
 	@Override
-	public Color getBeaconTintColor() { return this.beaconTintColor; }
+	public Color getBeaconTintColor() { return this.isBeaconTintBlock() ? computeBeaconTintColor(this.blockState) : null; }
+	/** beacon beams are rare, so the color is re-calculated instead of stored in every wrapper */
+	@Nullable
+	private static Color computeBeaconTintColor(BlockState blockState)
+	{
+		if (blockState == null || !(blockState.getBlock() instanceof BeaconBeamBlock))
+		{
+			return null;
+		}
+		
+		int colorInt;
+		#if MC_VER <= MC_1_19_4
+		colorInt = ((BeaconBeamBlock) blockState.getBlock()).getColor().getMaterialColor().col;
+		#else 
+		colorInt = ((BeaconBeamBlock) blockState.getBlock()).getColor().getMapColor().col;
+		#endif
+		return ColorUtil.toColorObjRGB(colorInt);
+	}
 	
 	@Override
 	public byte getMaterialId() { return this.blockMaterialId; }
@@ -529,6 +682,16 @@ public class BlockStateWrapper implements IBlockStateWrapper
 			return WRAPPER_BY_RESOURCE_LOCATION.get(finalResourceStateString);
 		}
 		
+		// use the persisted dictionary if possible,
+		// this skips parsing the string, looking up the block, and re-serializing the state
+		BlockState dictionaryState = BlockStateDictionary.tryGetBlockState(finalResourceStateString);
+		if (dictionaryState != null)
+		{
+			BlockStateWrapper dictionaryWrapper = fromBlockState(dictionaryState, levelWrapper, finalResourceStateString);
+			WRAPPER_BY_RESOURCE_LOCATION.putIfAbsent(finalResourceStateString, dictionaryWrapper);
+			return dictionaryWrapper;
+		}
+		
 		
 		
 		// if no wrapper is found, default to air
@@ -610,16 +773,7 @@ public class BlockStateWrapper implements IBlockStateWrapper
 				BlockState foundState = null;
 				if (blockStatePropertiesString != null)
 				{
-					List<BlockState> possibleStateList = block.getStateDefinition().getPossibleStates();
-					for (BlockState possibleState : possibleStateList)
-					{
-						String possibleStatePropertiesString = serializeBlockStateProperties(possibleState);
-						if (possibleStatePropertiesString.equals(blockStatePropertiesString))
-						{
-							foundState = possibleState;
-							break;
-						}
-					}
+					foundState = getStateByPropertiesString(block).get(blockStatePropertiesString);
 				}
 				
 				// use the default if no state was found or given
@@ -638,7 +792,8 @@ public class BlockStateWrapper implements IBlockStateWrapper
 					foundState = block.defaultBlockState();
 				}
 				
-				foundWrapper = new BlockStateWrapper(foundState, levelWrapper);
+				// use the canonical wrapper so the same state isn't wrapped multiple times
+				foundWrapper = fromBlockState(foundState, levelWrapper);
 				return foundWrapper;
 			}
 			catch (Exception e)
@@ -654,8 +809,28 @@ public class BlockStateWrapper implements IBlockStateWrapper
 		}
 	}
 	
+	/** 
+	 * Returns a reverse index from each of the block's {@link BlockStateWrapper#serializeBlockStateProperties(BlockState)} 
+	 * strings to its {@link BlockState}, built the first time the block is deserialized. <br>
+	 * Some blocks have thousands of states, so re-serializing every state for each lookup is quite slow.
+	 */
+	private static Map<String, BlockState> getStateByPropertiesString(Block block)
+	{
+		return STATE_BY_PROPERTIES_STRING_BY_BLOCK.computeIfAbsent(block, (newBlock) ->
+		{
+			List<BlockState> possibleStateList = newBlock.getStateDefinition().getPossibleStates();
+			HashMap<String, BlockState> stateByPropertiesString = new HashMap<>(possibleStateList.size());
+			for (BlockState possibleState : possibleStateList)
+			{
+				// keep the first match, the same as the previous linear search did
+				stateByPropertiesString.putIfAbsent(serializeBlockStateProperties(possibleState), possibleState);
+			}
+			return stateByPropertiesString;
+		});
+	}
+	
 	/** used to compare and save BlockStates based on their properties */
-	private static String serializeBlockStateProperties(BlockState blockState)
+	static String serializeBlockStateProperties(BlockState blockState)
 	{
 		// get the property list for this block (doesn't contain this block state's values, just the names and possible values)
 		java.util.Collection<net.minecraft.world.level.block.state.properties.Property<?>> blockPropertyCollection = blockState.getProperties();
@@ -691,106 +866,6 @@ public class BlockStateWrapper implements IBlockStateWrapper
 	//==============//
 	
 	private EDhApiBlockMaterial calculateEDhApiBlockMaterialId() 
-	{
-		if (this.blockState == null)
-		{
-			return EDhApiBlockMaterial.AIR;
-		}
-		
-		
-		String serialString = this.getSerialString().toLowerCase();
-		
-		if (this.blockState.is(BlockTags.LEAVES) 
-			|| serialString.contains("bamboo") 
-			|| serialString.contains("cactus")
-			|| serialString.contains("chorus_flower")
-			|| serialString.contains("mushroom")
-			) 
-		{
-			return EDhApiBlockMaterial.LEAVES;
-		}
-		else if (this.blockState.is(Blocks.LAVA))
-		{
-			return EDhApiBlockMaterial.LAVA;
-		}
-		else if (this.isLiquid() || this.blockState.is(Blocks.WATER))
-		{
-			return EDhApiBlockMaterial.WATER;
-		}
-		else if (this.blockState.getSoundType() == SoundType.WOOD
-				|| serialString.contains("root")
-				#if MC_VER >= MC_1_19_4
-				|| this.blockState.getSoundType() == SoundType.CHERRY_WOOD
-				#endif
-				) 
-		{
-			return EDhApiBlockMaterial.WOOD;
-		}
-		else if (this.blockState.getSoundType() == SoundType.METAL
-				#if MC_VER >= MC_1_19_2
-				|| this.blockState.getSoundType() == SoundType.COPPER
-				#endif
-				#if MC_VER >= MC_1_20_4
-				|| this.blockState.getSoundType() == SoundType.COPPER_BULB
-				|| this.blockState.getSoundType() == SoundType.COPPER_GRATE
-				#endif
-				) 
-		{
-			return EDhApiBlockMaterial.METAL;
-		}
-		else if (serialString.contains("grass_block"))
-		{
-			return EDhApiBlockMaterial.GRASS;
-		}
-		else if (
-			serialString.contains("dirt")
-			|| serialString.contains("gravel")
-			|| serialString.contains("mud")
-			|| serialString.contains("podzol")
-			|| serialString.contains("mycelium")
-			)
-		{
-			return EDhApiBlockMaterial.DIRT;
-		}
-		#if MC_VER >= MC_1_17_1
-		else if (this.blockState.getSoundType() == SoundType.DEEPSLATE
-				|| this.blockState.getSoundType() == SoundType.DEEPSLATE_BRICKS
-				|| this.blockState.getSoundType() == SoundType.DEEPSLATE_TILES 
-				|| this.blockState.getSoundType() == SoundType.POLISHED_DEEPSLATE
-				|| serialString.contains("deepslate") ) 
-		{
-			return EDhApiBlockMaterial.DEEPSLATE;
-		} 
-		#endif
-		else if (this.serialString.contains("snow"))
-		{
-			return EDhApiBlockMaterial.SNOW;
-		} 
-		else if (serialString.contains("sand"))
-		{
-			return EDhApiBlockMaterial.SAND;
-		}
-		else if (serialString.contains("terracotta"))
-		{
-			return EDhApiBlockMaterial.TERRACOTTA;
-		} 
-		else if (this.blockState.is(BlockTags.BASE_STONE_NETHER)) 
-		{
-			return EDhApiBlockMaterial.NETHER_STONE;
-		} 
-		else if (serialString.contains("stone")
-				|| serialString.contains("ore")) 
-		{
-			return EDhApiBlockMaterial.STONE;
-		}
-		else if (this.blockState.getLightEmission() > 0) 
-		{
-			return EDhApiBlockMaterial.ILLUMINATED;
-		}
-		else
-		{
-			return EDhApiBlockMaterial.UNKNOWN;
-		}
-	}
+	{ return BlockMaterialClassifier.classify(this.blockState, this.getSerialString(), this.isLiquid()); }
 	
 }
@@ -23,6 +23,7 @@ import com.seibel.distanthorizons.common.wrappers.McObjectConverter;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
 import com.seibel.distanthorizons.core.pos.blockPos.DhBlockPos;
 import com.seibel.distanthorizons.core.util.ColorUtil;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.IClientLevelWrapper;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.block.model.BakedQuad;
@@ -41,9 +42,16 @@ import java.util.Random;
 import net.minecraft.world.level.block.state.BlockState;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * This stores and calculates the colors
@@ -69,12 +77,44 @@ public class ClientBlockStateColorCache
 	 */
 	private static final ReentrantLock RESOLVE_LOCK = new ReentrantLock();
 	
+	/** 
+	 * Colors for every block state, baked in the background after a level is loaded or the cache is cleared. <br>
+	 * Null if no bake has finished since the last time the cache was cleared,
+	 * in which case colors are resolved lazily using {@link ClientBlockStateColorCache#RESOLVE_LOCK}.
+	 */
+	private static volatile BakedColors bakedColors = null;
+	/** incremented whenever the baked colors are cleared so any in-progress bake will be abandoned */
+	private static final AtomicInteger BAKE_GENERATION = new AtomicInteger(0);
+	/** -1 if no bake is running */
+	private static int runningBakeGeneration = -1;
+	/** completes once the running bake has finished, successfully or not */
+	private static CompletableFuture<Void> runningBakeFuture = CompletableFuture.completedFuture(null);
+	/** 
+	 * MC's resource pack list isn't thread safe and can only be read on the client thread, 
+	 * bakes started from other threads use the list from the last bake started on the client thread. <br>
+	 * Null if no bake has been started on the client thread yet.
+	 */
+	private static Collection<String> lastSelectedResourcePackIds = null;
+	
+	static
+	{
+		// the baked colors are indexed by state ID, so they're stale if the IDs are re-assigned (IE when joining a modded server)
+		BlockStateDictionary.addRegistryChangeListener(ClientBlockStateColorCache::onRegistryChanged);
+	}
+	
 	
 	/** This is the order each direction on a block is processed when attempting to get the texture/color */
 	private static final Direction[] COLOR_RESOLUTION_DIRECTION_ORDER = { Direction.UP, Direction.NORTH, Direction.EAST, Direction.WEST, Direction.SOUTH, Direction.DOWN };
 	
 	private static final int FLOWER_COLOR_SCALE = 5;
 	
+	public static final String AVERAGE_ALL_ANIMATION_FRAMES_PROPERTY_NAME = "distanthorizons.averageAllAnimationFrames";
+	/** 
+	 * If true every frame of animated textures is averaged, otherwise only the first frame is used. <br>
+	 * Can be enabled by starting the game with <code>-Ddistanthorizons.averageAllAnimationFrames=true</code>.
+	 */
+	public static final boolean AVERAGE_ALL_ANIMATION_FRAMES = Boolean.getBoolean(AVERAGE_ALL_ANIMATION_FRAMES_PROPERTY_NAME);
+	
 	
 	
 	#if MC_VER < MC_1_19_2
@@ -169,91 +209,353 @@ public class ClientBlockStateColorCache
 		this.blockState = blockState;
 		this.levelWrapper = samplingLevel;
 		this.level = (LevelReader) samplingLevel.getWrappedMcObject();
-		this.resolveColors();
+		
+		BakedColors bakedColors = ClientBlockStateColorCache.bakedColors;
+		if (bakedColors == null || !bakedColors.tryApply(this))
+		{
+			TextureAtlasSprite texture;
+			try
+			{
+				// getQuads() isn't thread safe so we need to put this logic in a lock
+				RESOLVE_LOCK.lock();
+				texture = this.resolveModelProperties();
+			}
+			finally
+			{
+				RESOLVE_LOCK.unlock();
+			}
+			
+			// averaging the texture doesn't touch the model so it can be done outside the lock
+			this.resolveBaseColor(texture);
+		}
+	}
+	/** only used when baking, the resulting object can't be used to get tinted colors */
+	private ClientBlockStateColorCache(BlockState blockState)
+	{
+		this.blockState = blockState;
+		this.levelWrapper = null;
+		this.level = null;
 	}
 	
 	
 	
-	//===================//
-	// color calculation //
-	//===================//
+	//========//
+	// baking //
+	//========//
 	
-	private void resolveColors()
+	/** 
+	 * Starts baking the colors for every registered block state on DH's file handler threads
+	 * if they haven't already been baked. <br>
+	 * Should only be called once MC's block models have been loaded,
+	 * and should be called on the client thread so the selected resource packs can be read.
+	 * 
+	 * @return a future that completes once the bake is done, successfully or not,
+	 *          so other startup work can avoid competing with it for threads
+	 */
+	public static synchronized CompletableFuture<Void> startBakeAsync()
 	{
-		if (this.isColorResolved)
+		int generation = BAKE_GENERATION.get();
+		if (bakedColors != null || runningBakeGeneration == generation)
 		{
-			return;
+			return runningBakeFuture;
 		}
+		runningBakeGeneration = generation;
 		
-		try
+		if (Minecraft.getInstance().isSameThread())
 		{
-			// getQuads() isn't thread safe so we need to put this logic in a lock
-			RESOLVE_LOCK.lock();
-			
-			if (this.blockState.getFluidState().isEmpty())
+			lastSelectedResourcePackIds = new ArrayList<>(Minecraft.getInstance().getResourcePackRepository().getSelectedIds());
+		}
+		Collection<String> selectedResourcePackIds = lastSelectedResourcePackIds;
+		
+		runningBakeFuture = supplyAsync(() -> bake(generation, selectedResourcePackIds))
+			.thenCompose((averagingFuture) -> averagingFuture)
+			.whenComplete((ignored, throwable) ->
 			{
-				// look for the first non-empty direction
-				List<BakedQuad> quads = null;
-				for (Direction direction : COLOR_RESOLUTION_DIRECTION_ORDER)
+				if (throwable != null)
 				{
-					quads = Minecraft.getInstance().getModelManager().getBlockModelShaper().
-							getBlockModel(this.blockState).getQuads(this.blockState, direction, RANDOM);
-					
-					if (quads != null && !quads.isEmpty()
-						&& !(
-							this.blockState.getBlock() instanceof RotatedPillarBlock
-							&& direction == Direction.UP
-							)
-						)
+					LOGGER.error("Block color bake failed, colors will be resolved lazily. Error: ["+throwable.getMessage()+"].", throwable);
+				}
+				
+				synchronized (ClientBlockStateColorCache.class)
+				{
+					if (runningBakeGeneration == generation)
 					{
-						break;
+						runningBakeGeneration = -1;
 					}
 				}
+			})
+			.handle((ignored, throwable) -> null);
+		return runningBakeFuture;
+	}
+	
+	/** Should be called whenever resource packs change, any in-progress bake will be abandoned. */
+	public static synchronized void clearBakedColors()
+	{
+		BAKE_GENERATION.incrementAndGet();
+		bakedColors = null;
+	}
+	
+	/** Drops and re-bakes the colors if they were baked for a different set of block state IDs. */
+	private static synchronized void onRegistryChanged(long newRegistryFingerprint)
+	{
+		BakedColors currentBakedColors = bakedColors;
+		if (currentBakedColors != null && currentBakedColors.registryFingerprint == newRegistryFingerprint)
+		{
+			return;
+		}
+		
+		if (currentBakedColors == null && runningBakeGeneration == -1)
+		{
+			// nothing has been baked, colors are being resolved lazily
+			return;
+		}
+		
+		LOGGER.info("Block state registry changed, re-baking block colors.");
+		clearBakedColors();
+		startBakeAsync();
+	}
+	
+	/**
+	 * Model lookups aren't thread safe, so the model properties and textures
+	 * for every block state are resolved one at a time under {@link ClientBlockStateColorCache#RESOLVE_LOCK}.
+	 * Only the texture averaging, which is the expensive part, is split across threads.
+	 * 
+	 * @param selectedResourcePackIds if null the disk cache isn't used, since its fingerprint can't be calculated
+	 * @return a future that completes once the averaged colors have been published
+	 */
+	private static CompletableFuture<Void> bake(int generation, Collection<String> selectedResourcePackIds)
+	{
+		long startTimeMs = System.currentTimeMillis();
+		
+		int stateCount = Block.BLOCK_STATE_REGISTRY.size();
+		long registryFingerprint = BlockStateDictionary.getRegistryFingerprint();
+		
+		// use the colors from the last session if nothing has changed since then
+		long fingerprint = (selectedResourcePackIds != null) ? BlockColorDiskCache.computeFingerprint(selectedResourcePackIds) : 0;
+		BakedColors loadedBakedColors = (selectedResourcePackIds != null) ? BlockColorDiskCache.tryLoad(fingerprint, stateCount, registryFingerprint) : null;
+		if (loadedBakedColors != null)
+		{
+			if (tryPublishBakedColors(loadedBakedColors, generation))
+			{
+				LOGGER.info("Loaded colors for ["+stateCount+"] block states from disk in ["+(System.currentTimeMillis() - startTimeMs)+"] ms.");
+			}
+			return CompletableFuture.completedFuture(null);
+		}
+		
+		
+		
+		// resolve model properties //
+		
+		ClientBlockStateColorCache[] colorCaches = new ClientBlockStateColorCache[stateCount];
+		TextureAtlasSprite[] textures = new TextureAtlasSprite[stateCount];
+		for (int id = 0; id < stateCount; id++)
+		{
+			if (BAKE_GENERATION.get() != generation)
+			{
+				return CompletableFuture.completedFuture(null);
+			}
+			
+			BlockState blockState = Block.BLOCK_STATE_REGISTRY.byId(id);
+			if (blockState == null)
+			{
+				continue;
+			}
+			
+			try
+			{
+				ClientBlockStateColorCache colorCache = new ClientBlockStateColorCache(blockState);
 				
-				if (quads == null || quads.isEmpty())
+				// the lock is only held for one block state at a time so lazy resolves on other threads aren't stalled
+				RESOLVE_LOCK.lock();
+				try
 				{
-					quads = Minecraft.getInstance().getModelManager().getBlockModelShaper().
-							getBlockModel(this.blockState).getQuads(this.blockState, null, RANDOM);
+					textures[id] = colorCache.resolveModelProperties();
 				}
-				
-				if (quads != null && !quads.isEmpty())
+				finally
 				{
-					this.needPostTinting = quads.get(0).isTinted();
-					this.needShade = quads.get(0).isShade();
-					this.tintIndex = quads.get(0).getTintIndex();
-					this.baseColor = calculateColorFromTexture(
-	                        #if MC_VER < MC_1_17_1 quads.get(0).sprite,
-							#else quads.get(0).getSprite(), #endif
-							ColorMode.getColorMode(this.blockState.getBlock()));
+					RESOLVE_LOCK.unlock();
 				}
-				else
+				colorCaches[id] = colorCache;
+			}
+			catch (Exception e)
+			{
+				// this block state will be resolved lazily instead
+				LOGGER.debug("Unable to bake color for block state ["+blockState+"], error: ["+e.getMessage()+"].");
+			}
+		}
+		
+		
+		
+		// average textures //
+		
+		BakedColors newBakedColors = new BakedColors(stateCount, registryFingerprint);
+		
+		// each task gets a contiguous range of IDs so no per-state tasks need to be queued
+		int taskCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		int sliceSize = Math.max(1, (stateCount + taskCount - 1) / taskCount);
+		CompletableFuture<?>[] averagingFutures = new CompletableFuture[(stateCount + sliceSize - 1) / sliceSize];
+		for (int i = 0; i < averagingFutures.length; i++)
+		{
+			int minId = i * sliceSize;
+			int maxId = Math.min(minId + sliceSize, stateCount);
+			averagingFutures[i] = supplyAsync(() -> 
+			{
+				averageTextureRange(newBakedColors, colorCaches, textures, minId, maxId, generation);
+				return null;
+			});
+		}
+		
+		// nothing waits on the averaging tasks, so the pool's threads are never blocked by them
+		return CompletableFuture.allOf(averagingFutures).thenRun(() ->
+		{
+			if (tryPublishBakedColors(newBakedColors, generation))
+			{
+				LOGGER.info("Baked colors for ["+stateCount+"] block states in ["+(System.currentTimeMillis() - startTimeMs)+"] ms using ["+averagingFutures.length+"] tasks.");
+				if (selectedResourcePackIds != null)
 				{
-					// Backup method.
-					this.needPostTinting = false;
-					this.needShade = false;
-					this.tintIndex = 0;
-					this.baseColor = calculateColorFromTexture(Minecraft.getInstance().getModelManager().getBlockModelShaper().getParticleIcon(this.blockState),
-							ColorMode.getColorMode(this.blockState.getBlock()));
+					BlockColorDiskCache.save(fingerprint, newBakedColors);
 				}
 			}
+		});
+	}
+	/** @return false if the cache was cleared while baking, meaning the given colors may be out of date */
+	private static synchronized boolean tryPublishBakedColors(BakedColors newBakedColors, int generation)
+	{
+		if (BAKE_GENERATION.get() != generation)
+		{
+			return false;
+		}
+		
+		bakedColors = newBakedColors;
+		return true;
+	}
+	private static void averageTextureRange(BakedColors bakedColors, ClientBlockStateColorCache[] colorCaches, TextureAtlasSprite[] textures, int minId, int maxId, int generation)
+	{
+		for (int id = minId; id < maxId; id++)
+		{
+			if (BAKE_GENERATION.get() != generation)
+			{
+				return;
+			}
+			
+			ClientBlockStateColorCache colorCache = colorCaches[id];
+			if (colorCache == null)
+			{
+				continue;
+			}
+			
+			try
+			{
+				colorCache.resolveBaseColor(textures[id]);
+				bakedColors.set(id, colorCache);
+			}
+			catch (Exception e)
+			{
+				// this block state will be resolved lazily instead
+				LOGGER.debug("Unable to bake color for block state ["+colorCache.blockState+"], error: ["+e.getMessage()+"].");
+			}
+		}
+	}
+	
+	/** runs inline if the file handler executor isn't available */
+	private static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier)
+	{
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor != null)
+		{
+			try
+			{
+				return CompletableFuture.supplyAsync(supplier, executor);
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down
+			}
+		}
+		
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try
+		{
+			future.complete(supplier.get());
+		}
+		catch (Exception e)
+		{
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+	
+	
+	
+	//===================//
+	// color calculation //
+	//===================//
+	
+	/** 
+	 * Sets everything except the base color. <br>
+	 * Must be called while holding {@link ClientBlockStateColorCache#RESOLVE_LOCK}.
+	 * 
+	 * @return the texture the base color should be calculated from
+	 */
+	private TextureAtlasSprite resolveModelProperties()
+	{
+		if (this.blockState.getFluidState().isEmpty())
+		{
+			// look for the first non-empty direction
+			List<BakedQuad> quads = null;
+			for (Direction direction : COLOR_RESOLUTION_DIRECTION_ORDER)
+			{
+				quads = Minecraft.getInstance().getModelManager().getBlockModelShaper().
+						getBlockModel(this.blockState).getQuads(this.blockState, direction, RANDOM);
+				
+				if (quads != null && !quads.isEmpty()
+					&& !(
+						this.blockState.getBlock() instanceof RotatedPillarBlock
+						&& direction == Direction.UP
+						)
+					)
+				{
+					break;
+				}
+			}
+			
+			if (quads == null || quads.isEmpty())
+			{
+				quads = Minecraft.getInstance().getModelManager().getBlockModelShaper().
+						getBlockModel(this.blockState).getQuads(this.blockState, null, RANDOM);
+			}
+			
+			if (quads != null && !quads.isEmpty())
+			{
+				this.needPostTinting = quads.get(0).isTinted();
+				this.needShade = quads.get(0).isShade();
+				this.tintIndex = quads.get(0).getTintIndex();
+				return #if MC_VER < MC_1_17_1 quads.get(0).sprite; #else quads.get(0).getSprite(); #endif
+			}
 			else
 			{
-				// Liquid Block
-				this.needPostTinting = true;
+				// Backup method.
+				this.needPostTinting = false;
 				this.needShade = false;
 				this.tintIndex = 0;
-				this.baseColor = calculateColorFromTexture(Minecraft.getInstance().getModelManager().getBlockModelShaper().getParticleIcon(this.blockState),
-						ColorMode.getColorMode(this.blockState.getBlock()));
+				return Minecraft.getInstance().getModelManager().getBlockModelShaper().getParticleIcon(this.blockState);
 			}
-			
-			this.isColorResolved = true;
 		}
-		finally
+		else
 		{
-			RESOLVE_LOCK.unlock();
+			// Liquid Block
+			this.needPostTinting = true;
+			this.needShade = false;
+			this.tintIndex = 0;
+			return Minecraft.getInstance().getModelManager().getBlockModelShaper().getParticleIcon(this.blockState);
 		}
 	}
-	//TODO: Perhaps make this not just use the first frame?
+	/** thread safe as long as the texture isn't being re-uploaded */
+	private void resolveBaseColor(TextureAtlasSprite texture)
+	{
+		this.baseColor = calculateColorFromTexture(texture, ColorMode.getColorMode(this.blockState.getBlock()));
+		this.isColorResolved = true;
+	}
 	private static int calculateColorFromTexture(TextureAtlasSprite texture, ColorMode colorMode)
 	{
 		int count = 0;
@@ -267,57 +569,48 @@ public class ClientBlockStateColorCache
 		// Since ColorMode is set per block, you only need to check this once.
 		if (colorMode != ColorMode.Chisel)
 		{
-			// textures normally use u and v instead of x and y
-			for (int v = 0; v < getTextureHeight(texture); v++)
+			//note: Minecraft color format is: 0xAA BB GG RR
+			//________ DH mod color format is: 0xAA RR GG BB
+			//OpenGL RGBA format native order: 0xRR GG BB AA
+			//_ OpenGL RGBA format Java Order: 0xAA BB GG RR
+			int[] pixels = TextureAtlasSpriteWrapper.getPixelsRGBA(texture, AVERAGE_ALL_ANIMATION_FRAMES);
+			
+			// the color mode is the same for every pixel so it's only checked once
+			boolean isLeaves = (colorMode == ColorMode.Leaves);
+			boolean isFlower = (colorMode == ColorMode.Flower);
+			boolean ignoreTransparentPixels = (colorMode != ColorMode.Glass);
+			
+			for (int i = 0; i < pixels.length; i++)
 			{
-				for (int u = 0; u < getTextureWidth(texture); u++)
+				tempColor = pixels[i];
+				
+				int r = (tempColor & 0x000000FF);
+				int g = (tempColor & 0x0000FF00) >>> 8;
+				int b = (tempColor & 0x00FF0000) >>> 16;
+				int a = (tempColor & 0xFF000000) >>> 24;
+				
+				if (a == 0 && ignoreTransparentPixels)
 				{
-					//note: Minecraft color format is: 0xAA BB GG RR
-					//________ DH mod color format is: 0xAA RR GG BB
-					//OpenGL RGBA format native order: 0xRR GG BB AA
-					//_ OpenGL RGBA format Java Order: 0xAA BB GG RR
-					tempColor = TextureAtlasSpriteWrapper.getPixelRGBA(texture, 0, u, v);
-					
-					int r = (tempColor & 0x000000FF);
-					int g = (tempColor & 0x0000FF00) >>> 8;
-					int b = (tempColor & 0x00FF0000) >>> 16;
-					int a = (tempColor & 0xFF000000) >>> 24;
-					int scale = 1;
-					if (colorMode == ColorMode.Leaves)
-					{
-						//switch (//FIXME add config option)
-						//	case BLACK:
-						//	a = 255; //simulate black background of fast leaves
-						//		break;
-						//	case IGNORE:
-							if (a == 0) {
-								continue; //same long grass
-							}
-							else
-							{
-								a = 255; //just in case there are semi transparent pixels
-							}					
-						//		break;
-						//	case TRANSPARENT:
-						//		break; //do nothing, let it count towards transparency
-						
-					}
-					else if (a == 0 && colorMode != ColorMode.Glass)
-					{
-						continue;
-					}
-					else if (colorMode == ColorMode.Flower && (g + 25 < b || g + 25 < r))
-					{
-						scale = FLOWER_COLOR_SCALE;
-					}
-					count += scale;
-					//apparently alpha is linear
-					alpha += a * scale;
-					//gamma correction is complicated
-					red += srgbToLinearTable[r] * a * scale;
-					green += srgbToLinearTable[g] * a * scale;
-					blue += srgbToLinearTable[b] * a * scale;
+					// leaves ignore transparent pixels the same as long grass
+					continue;
 				}
+				
+				if (isLeaves)
+				{
+					//FIXME add config option to simulate the black background of fast leaves (a = 255 for every pixel)
+					//  or let transparency count towards the color
+					a = 255; //just in case there are semi transparent pixels
+				}
+				
+				int scale = (isFlower && (g + 25 < b || g + 25 < r)) ? FLOWER_COLOR_SCALE : 1;
+				
+				count += scale;
+				//apparently alpha is linear
+				alpha += a * scale;
+				//gamma correction is complicated
+				red += srgbToLinearTable[r] * a * scale;
+				green += srgbToLinearTable[g] * a * scale;
+				blue += srgbToLinearTable[b] * a * scale;
 			}
 		}
 		
@@ -344,22 +637,6 @@ public class ClientBlockStateColorCache
 		}
 		return tempColor;
 	}
-	private static int getTextureWidth(TextureAtlasSprite texture)
-	{
-        #if MC_VER < MC_1_19_4
-		return texture.getWidth();
-        #else
-		return texture.contents().width();
-        #endif
-	}
-	private static int getTextureHeight(TextureAtlasSprite texture)
-	{
-        #if MC_VER < MC_1_19_4
-		return texture.getHeight();
-        #else
-		return texture.contents().height();
-        #endif
-	}
 	/**
 	 * This method was suggested by IMS from the Iris/Sodium team. 
 	 * That's where the numbers and code are based.
@@ -462,6 +739,64 @@ public class ClientBlockStateColorCache
 	// helper classes //
 	//================//
 	
+	/** 
+	 * Colors and tint info for every block state, indexed by {@link Block#BLOCK_STATE_REGISTRY} ID. <br>
+	 * Only valid while the registry's fingerprint matches {@link BakedColors#registryFingerprint}.
+	 */
+	static class BakedColors
+	{
+		private static final byte FLAG_RESOLVED = 1;
+		private static final byte FLAG_NEED_SHADE = 1 << 1;
+		private static final byte FLAG_NEED_POST_TINTING = 1 << 2;
+		
+		final int[] baseColors;
+		final int[] tintIndices;
+		/** 0 if the block state wasn't baked */
+		final byte[] flags;
+		/** the {@link BlockStateDictionary} registry fingerprint these colors' IDs came from */
+		final long registryFingerprint;
+		
+		public BakedColors(int stateCount, long registryFingerprint)
+		{
+			this.registryFingerprint = registryFingerprint;
+			this.baseColors = new int[stateCount];
+			this.tintIndices = new int[stateCount];
+			this.flags = new byte[stateCount];
+		}
+		
+		public void set(int id, ClientBlockStateColorCache colorCache)
+		{
+			this.baseColors[id] = colorCache.baseColor;
+			this.tintIndices[id] = colorCache.tintIndex;
+			this.flags[id] = (byte) (FLAG_RESOLVED
+					| (colorCache.needShade ? FLAG_NEED_SHADE : 0)
+					| (colorCache.needPostTinting ? FLAG_NEED_POST_TINTING : 0));
+		}
+		
+		/** @return false if the given cache's block state wasn't baked */
+		public boolean tryApply(ClientBlockStateColorCache colorCache)
+		{
+			int id = Block.getId(colorCache.blockState);
+			if (id < 0 || id >= this.flags.length)
+			{
+				return false;
+			}
+			
+			byte flags = this.flags[id];
+			if ((flags & FLAG_RESOLVED) == 0)
+			{
+				return false;
+			}
+			
+			colorCache.baseColor = this.baseColors[id];
+			colorCache.tintIndex = this.tintIndices[id];
+			colorCache.needShade = (flags & FLAG_NEED_SHADE) != 0;
+			colorCache.needPostTinting = (flags & FLAG_NEED_POST_TINTING) != 0;
+			colorCache.isColorResolved = true;
+			return true;
+		}
+	}
+	
 	enum ColorMode
 	{
 		Default,
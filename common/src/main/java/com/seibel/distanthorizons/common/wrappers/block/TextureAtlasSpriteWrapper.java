@@ -19,10 +19,12 @@
 
 package com.seibel.distanthorizons.common.wrappers.block;
 
+import com.mojang.blaze3d.platform.NativeImage;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
 
-#if MC_VER < MC_1_17_1
+#if MC_VER < MC_1_19_4
 #elif MC_VER < MC_1_21_3
+import net.minecraft.client.renderer.texture.SpriteContents;
 #else
 import com.seibel.distanthorizons.core.util.ColorUtil;
 import net.minecraft.client.renderer.texture.SpriteContents;
@@ -75,4 +77,88 @@ public class TextureAtlasSpriteWrapper
 		
 	}
 	
+	/**
+	 * Reads the given sprite's pixels in a single pass, avoiding the per-pixel
+	 * frame offset logic in {@link #getPixelRGBA(TextureAtlasSprite, int, int, int)}. <br>
+	 * Pixels use the same 0xAA BB GG RR format as {@link #getPixelRGBA(TextureAtlasSprite, int, int, int)}. <br><br>
+	 * 
+	 * If allFrames is true every frame in the sprite's image is returned one after another,
+	 * otherwise only the first animation frame is returned.
+	 */
+	public static int[] getPixelsRGBA(TextureAtlasSprite sprite, boolean allFrames)
+	{
+		#if MC_VER < MC_1_19_4
+		NativeImage image = sprite.mainImage[0];
+		int width = sprite.getWidth();
+		int height = sprite.getHeight();
+		#else
+		SpriteContents content = sprite.contents(); // don't close, otherwise MC will be corrupted and you won't be able to re-access the texture
+		NativeImage image = content.originalImage;
+		int width = content.width();
+		int height = content.height();
+		#endif
+		
+		if (!allFrames)
+		{
+			int[] pixels = new int[width * height];
+			readPixelsRGBA(image, getFirstFrameX(sprite), getFirstFrameY(sprite), width, height, pixels, 0);
+			return pixels;
+		}
+		
+		// animated sprites store each frame in a grid
+		int framesWide = Math.max(1, image.getWidth() / width);
+		int framesHigh = Math.max(1, image.getHeight() / height);
+		int frameSize = width * height;
+		int[] pixels = new int[frameSize * framesWide * framesHigh];
+		for (int frameY = 0; frameY < framesHigh; frameY++)
+		{
+			for (int frameX = 0; frameX < framesWide; frameX++)
+			{
+				int frameIndex = (frameY * framesWide) + frameX;
+				readPixelsRGBA(image, frameX * width, frameY * height, width, height, pixels, frameIndex * frameSize);
+			}
+		}
+		return pixels;
+	}
+	private static void readPixelsRGBA(NativeImage image, int minX, int minY, int width, int height, int[] pixels, int offset)
+	{
+		int index = offset;
+		for (int y = minY; y < minY + height; y++)
+		{
+			for (int x = minX; x < minX + width; x++)
+			{
+				#if MC_VER < MC_1_21_3
+				pixels[index++] = image.getPixelRGBA(x, y);
+				#else
+				// swap red and blue to convert from ARGB to MC's ABGR format
+				int argb = image.getPixel(x, y);
+				pixels[index++] = (argb & 0xFF00FF00) | ((argb >>> 16) & 0xFF) | ((argb & 0xFF) << 16);
+				#endif
+			}
+		}
+	}
+	
+	private static int getFirstFrameX(TextureAtlasSprite sprite)
+	{
+		#if MC_VER < MC_1_17_1
+		return sprite.framesX[0] * sprite.getWidth();
+		#elif MC_VER < MC_1_19_4
+		return (sprite.animatedTexture != null) ? sprite.animatedTexture.getFrameX(0) * sprite.getWidth() : 0;
+		#else
+		SpriteContents content = sprite.contents();
+		return (content.animatedTexture != null) ? content.animatedTexture.getFrameX(0) * content.width() : 0;
+		#endif
+	}
+	private static int getFirstFrameY(TextureAtlasSprite sprite)
+	{
+		#if MC_VER < MC_1_17_1
+		return sprite.framesY[0] * sprite.getHeight();
+		#elif MC_VER < MC_1_19_4
+		return (sprite.animatedTexture != null) ? sprite.animatedTexture.getFrameY(0) * sprite.getHeight() : 0;
+		#else
+		SpriteContents content = sprite.contents();
+		return (content.animatedTexture != null) ? content.animatedTexture.getFrameY(0) * content.height() : 0;
+		#endif
+	}
+	
 }
@@ -0,0 +1,202 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
+import net.minecraft.core.Registry;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates a {@link BlockStateWrapper} for every registered block state
+ * and a {@link BiomeWrapper} for every registered biome on DH's file handler threads
+ * so the first LOD builds after joining a world don't have to. <br><br>
+ *
+ * Disabled by default, can be enabled by starting the game with <code>-Ddistanthorizons.preWarmWrappers=true</code>.
+ */
+public class WrapperPreWarmer
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	public static final String ENABLED_PROPERTY_NAME = "distanthorizons.preWarmWrappers";
+	
+	/** 
+	 * Block states only need to be wrapped once unless the registry changes. <br>
+	 * Reset if wrapping fails or {@link BlockStateDictionary} sees the registry change.
+	 */
+	private static final AtomicBoolean BLOCK_STATES_STARTED = new AtomicBoolean(false);
+	
+	static
+	{
+		BlockStateDictionary.addRegistryChangeListener((newRegistryFingerprint) -> BLOCK_STATES_STARTED.set(false));
+	}
+	
+	
+	
+	//=========//
+	// running //
+	//=========//
+	
+	/** @see WrapperPreWarmer#startAsync(ILevelWrapper, CompletableFuture) */
+	public static void startAsync(ILevelWrapper levelWrapper) { startAsync(levelWrapper, CompletableFuture.completedFuture(null)); }
+	/**
+	 * Queues pre-warming and returns immediately. <br>
+	 * Block states are only wrapped the first time this is called (or after a failure or registry change),
+	 * biomes are wrapped every time since each world/server can have its own biome registry.
+	 * 
+	 * @param runAfter pre-warming won't start until this completes (successfully or not),
+	 *                 allowing it to wait for other startup work that uses the same threads, like the block color bake.
+	 */
+	public static void startAsync(ILevelWrapper levelWrapper, CompletableFuture<?> runAfter)
+	{
+		if (!Boolean.getBoolean(ENABLED_PROPERTY_NAME))
+		{
+			return;
+		}
+		
+		boolean wrapBlockStates = BLOCK_STATES_STARTED.compareAndSet(false, true);
+		runAfter
+			.handle((ignored, throwable) -> null)
+			.thenCompose((ignored) -> preWarmAsync(levelWrapper, wrapBlockStates))
+			.whenComplete((ignored, throwable) ->
+			{
+				if (throwable != null)
+				{
+					if (wrapBlockStates)
+					{
+						// let the next level load try again
+						BLOCK_STATES_STARTED.set(false);
+					}
+					
+					LOGGER.error("Wrapper pre-warm for level ["+levelWrapper.getDhIdentifier()+"] failed, error: ["+throwable.getMessage()+"].", throwable);
+				}
+			});
+	}
+	
+	private static CompletableFuture<Void> preWarmAsync(ILevelWrapper levelWrapper, boolean wrapBlockStates)
+	{
+		long startTimeMs = System.currentTimeMillis();
+		
+		int cachedBlockStateCount = BlockStateWrapper.WRAPPER_BY_BLOCK_STATE.size();
+		CompletableFuture<Void> blockStateFuture = wrapBlockStates ? preWarmBlockStatesAsync(levelWrapper) : CompletableFuture.completedFuture(null);
+		return blockStateFuture.thenRun(() ->
+		{
+			int blockStateCount = wrapBlockStates ? (BlockStateWrapper.WRAPPER_BY_BLOCK_STATE.size() - cachedBlockStateCount) : 0;
+			
+			int cachedBiomeCount = BiomeWrapper.WRAPPER_BY_BIOME.size();
+			preWarmBiomes(levelWrapper);
+			int biomeCount = BiomeWrapper.WRAPPER_BY_BIOME.size() - cachedBiomeCount;
+			
+			LOGGER.info("Pre-warmed ["+blockStateCount+"] block state and ["+biomeCount+"] biome wrappers for level ["+levelWrapper.getDhIdentifier()+"] " +
+					"in ["+(System.currentTimeMillis() - startTimeMs)+"] ms.");
+		});
+	}
+	
+	private static CompletableFuture<Void> preWarmBlockStatesAsync(ILevelWrapper levelWrapper)
+	{
+		ArrayList<BlockState> blockStates = new ArrayList<>(Block.BLOCK_STATE_REGISTRY.size());
+		for (BlockState blockState : Block.BLOCK_STATE_REGISTRY)
+		{
+			blockStates.add(blockState);
+		}
+		
+		// each task gets a contiguous slice so no per-state tasks need to be queued
+		int taskCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		int sliceSize = Math.max(1, (blockStates.size() + taskCount - 1) / taskCount);
+		List<CompletableFuture<Void>> futures = new ArrayList<>(taskCount);
+		for (int startIndex = 0; startIndex < blockStates.size(); startIndex += sliceSize)
+		{
+			List<BlockState> slice = blockStates.subList(startIndex, Math.min(startIndex + sliceSize, blockStates.size()));
+			futures.add(runAsync(() -> wrapBlockStates(slice, levelWrapper)));
+		}
+		
+		// nothing waits on the slices, so the pool's threads are never blocked by them
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+	}
+	private static void wrapBlockStates(List<BlockState> blockStates, ILevelWrapper levelWrapper)
+	{
+		for (BlockState blockState : blockStates)
+		{
+			try
+			{
+				BlockStateWrapper.fromBlockState(blockState, levelWrapper);
+			}
+			catch (Exception e)
+			{
+				// a single broken modded block shouldn't stop the rest from being wrapped,
+				// it will just be wrapped (and fail again) lazily
+				LOGGER.debug("Unable to pre-warm block state ["+blockState+"], error: ["+e.getMessage()+"].");
+			}
+		}
+	}
+	
+	/** biome registries are small enough that wrapping them in parallel isn't worth it */
+	private static void preWarmBiomes(ILevelWrapper levelWrapper)
+	{
+		Registry<Biome> registry = BiomeWrapper.getBiomeRegistry(levelWrapper);
+		if (registry == null)
+		{
+			return;
+		}
+		
+		#if MC_VER < MC_1_18_2
+		for (Biome biome : registry)
+		{
+			BiomeWrapper.getBiomeWrapper(biome, levelWrapper);
+		}
+		#elif MC_VER < MC_1_21_3
+		registry.holders().forEach((holder) -> BiomeWrapper.getBiomeWrapper(holder, levelWrapper));
+		#else
+		registry.listElements().forEach((holder) -> BiomeWrapper.getBiomeWrapper(holder, levelWrapper));
+		#endif
+	}
+	
+	/** runs inline if the file handler executor isn't available */
+	private static CompletableFuture<Void> runAsync(Runnable runnable)
+	{
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor != null)
+		{
+			try
+			{
+				return CompletableFuture.runAsync(runnable, executor);
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down
+			}
+		}
+		
+		runnable.run();
+		return CompletableFuture.completedFuture(null);
+	}
+	
+}
@@ -0,0 +1,355 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.chunk;
+
+import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import com.seibel.distanthorizons.core.api.internal.ServerApi;
+import com.seibel.distanthorizons.core.api.internal.SharedApi;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges repeated saves of the same chunk (autosave, unload, player edits, etc.)
+ * that happen within a short window into a single LOD update,
+ * and skips the update entirely if none of the chunk's sections changed
+ * since the last time it was submitted. <br><br>
+ *
+ * Pending saves are checked every server tick via {@link ChunkSaveCoalescer#tick()},
+ * the hashing and LOD updates themselves are run on the file handler threads. <br><br>
+ *
+ * Only used for {@link ChunkSnapshot}s, so it isn't used before MC 1.18.2.
+ *
+ * @see ServerLevelWrapper#getChunkSaveCoalescer()
+ */
+public class ChunkSaveCoalescer
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	/** how long to wait for additional saves of the same chunk before submitting it */
+	private static final long COALESCE_WINDOW_IN_MS = 2_000;
+	/** 
+	 * how long to wait for an in progress update of the same chunk to finish, 
+	 * after that the save is submitted anyway so it isn't held forever 
+	 */
+	private static final long MAX_WAIT_FOR_UPDATING_CHUNK_IN_MS = 10_000;
+	/** how long the server thread will wait for saves to be processed while the level is unloading */
+	private static final long MAX_UNLOAD_WAIT_IN_MS = 10_000;
+	/** 
+	 * Limits how many chunks' hashes are remembered, 
+	 * the least recently submitted chunks are forgotten first. 
+	 * Forgetting a hash just means the next save for that chunk won't be skipped. 
+	 */
+	private static final int MAX_REMEMBERED_CHUNK_HASHES = 64_000;
+	
+	/** runs inline if the file handler executor isn't available */
+	private static final Executor PROCESSING_EXECUTOR = (runnable) ->
+	{
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor != null)
+		{
+			try
+			{
+				executor.execute(runnable);
+				return;
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down
+			}
+		}
+		
+		runnable.run();
+	};
+	
+	// counters across all levels //
+	private static final AtomicLong SAVES_RECEIVED_COUNT = new AtomicLong(0);
+	private static final AtomicLong SAVES_MERGED_COUNT = new AtomicLong(0);
+	private static final AtomicLong SAVES_UNCHANGED_COUNT = new AtomicLong(0);
+	private static final AtomicLong SAVES_SUBMITTED_COUNT = new AtomicLong(0);
+	
+	
+	private final ServerLevelWrapper levelWrapper;
+	
+	private final ConcurrentHashMap<Long, PendingSave> pendingSaveByChunkPos = new ConcurrentHashMap<>();
+	/** 
+	 * The most recently queued processing for each chunk. <br>
+	 * New processing is chained after the previous one so an older snapshot 
+	 * can't record its hashes after a newer one.
+	 */
+	private final ConcurrentHashMap<Long, CompletableFuture<Void>> processingFutureByChunkPos = new ConcurrentHashMap<>();
+	/** access ordered so the least recently submitted chunk is evicted first, synchronized on itself */
+	private final LinkedHashMap<Long, long[]> submittedSectionHashesByChunkPos = new LinkedHashMap<Long, long[]>(1024, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) { return this.size() > MAX_REMEMBERED_CHUNK_HASHES; }
+	};
+	
+	/** set once the level starts unloading, after that saves are processed immediately and hashes are no longer recorded */
+	private volatile boolean unloading = false;
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	public ChunkSaveCoalescer(ServerLevelWrapper levelWrapper) { this.levelWrapper = levelWrapper; }
+	
+	
+	
+	//=========//
+	// methods //
+	//=========//
+	
+	/** Can be called from any thread. */
+	public void submit(ChunkSnapshot snapshot)
+	{
+		#if MC_VER >= MC_1_18_2
+		SAVES_RECEIVED_COUNT.incrementAndGet();
+		
+		long chunkPosLong = snapshot.getChunkPos().toLong();
+		if (this.unloading || !this.levelWrapper.getWrappedMcObject().getServer().isRunning())
+		{
+			// the server is stopping and won't tick again, 
+			// waiting for more saves would just risk losing this one
+			this.pendingSaveByChunkPos.remove(chunkPosLong);
+			waitForProcessing(this.queueProcessing(chunkPosLong, snapshot));
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		this.pendingSaveByChunkPos.compute(chunkPosLong, (pos, pendingSave) ->
+		{
+			if (pendingSave != null)
+			{
+				// a flush is already pending for this chunk, 
+				// it will use the newer snapshot
+				SAVES_MERGED_COUNT.incrementAndGet();
+				pendingSave.snapshot = snapshot;
+				return pendingSave;
+			}
+			
+			return new PendingSave(snapshot, now);
+		});
+		#endif
+	}
+	
+	/** Should be called once per server tick. */
+	public void tick()
+	{
+		if (this.pendingSaveByChunkPos.isEmpty())
+		{
+			return;
+		}
+		
+		long now = System.currentTimeMillis();
+		for (Long chunkPosLong : this.pendingSaveByChunkPos.keySet())
+		{
+			this.tryFlush(chunkPosLong, now);
+		}
+	}
+	private void tryFlush(long chunkPosLong, long now)
+	{
+		PendingSave pendingSave = this.pendingSaveByChunkPos.get(chunkPosLong);
+		if (pendingSave == null || now < pendingSave.readyMs())
+		{
+			return;
+		}
+		
+		// checked when the window ends since the chunk may have started updating after the first save arrived
+		if (SharedApi.isChunkAtChunkPosAlreadyUpdating(pendingSave.chunkX, pendingSave.chunkZ)
+			&& now - pendingSave.readyMs() < MAX_WAIT_FOR_UPDATING_CHUNK_IN_MS)
+		{
+			// wait for the current update to finish so this save isn't lost
+			return;
+		}
+		
+		// only removed if no other thread flushed it first,
+		// any save arriving afterward starts a new window
+		if (this.pendingSaveByChunkPos.remove(chunkPosLong, pendingSave))
+		{
+			this.queueProcessing(chunkPosLong, pendingSave.snapshot);
+		}
+	}
+	
+	/** 
+	 * Submits every pending save and waits (up to {@link ChunkSaveCoalescer#MAX_UNLOAD_WAIT_IN_MS}) for them to be handed to the LOD builder. <br>
+	 * Should be called when the level unloads, any saves received afterward are submitted immediately.
+	 */
+	public void flushAll()
+	{
+		this.unloading = true;
+		
+		for (Long chunkPosLong : this.pendingSaveByChunkPos.keySet())
+		{
+			PendingSave pendingSave = this.pendingSaveByChunkPos.remove(chunkPosLong);
+			if (pendingSave != null)
+			{
+				this.queueProcessing(chunkPosLong, pendingSave.snapshot);
+			}
+		}
+		
+		// includes processing that was queued before the level started unloading
+		ArrayList<CompletableFuture<Void>> futures = new ArrayList<>(this.processingFutureByChunkPos.values());
+		waitForProcessing(CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])));
+		
+		synchronized (this.submittedSectionHashesByChunkPos)
+		{
+			this.submittedSectionHashesByChunkPos.clear();
+		}
+	}
+	
+	/** @return a future that completes once the snapshot has been processed */
+	private CompletableFuture<Void> queueProcessing(long chunkPosLong, ChunkSnapshot snapshot)
+	{
+		CompletableFuture<Void> queuedFuture = new CompletableFuture<>();
+		CompletableFuture<Void> previousFuture = this.processingFutureByChunkPos.put(chunkPosLong, queuedFuture);
+		
+		// process() handles its own errors, so the chain is never completed exceptionally
+		((previousFuture != null) ? previousFuture : CompletableFuture.<Void>completedFuture(null))
+			.thenRunAsync(() -> this.process(chunkPosLong, snapshot), PROCESSING_EXECUTOR)
+			.whenComplete((ignored, throwable) ->
+			{
+				this.processingFutureByChunkPos.remove(chunkPosLong, queuedFuture);
+				queuedFuture.complete(null);
+			});
+		return queuedFuture;
+	}
+	private static void waitForProcessing(CompletableFuture<Void> future)
+	{
+		try
+		{
+			future.get(MAX_UNLOAD_WAIT_IN_MS, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException e)
+		{
+			LOGGER.warn("Timed out after ["+MAX_UNLOAD_WAIT_IN_MS+"] ms waiting for chunk saves to be processed, some LODs may be out of date.");
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException ignore)
+		{
+			// process() logs its own errors
+		}
+	}
+	
+	private void process(long chunkPosLong, ChunkSnapshot snapshot)
+	{
+		#if MC_VER >= MC_1_18_2
+		try
+		{
+			long[] sectionHashes = snapshot.getSectionHashes();
+			long[] submittedHashes;
+			synchronized (this.submittedSectionHashesByChunkPos)
+			{
+				submittedHashes = this.submittedSectionHashesByChunkPos.get(chunkPosLong);
+			}
+			if (Arrays.equals(sectionHashes, submittedHashes))
+			{
+				SAVES_UNCHANGED_COUNT.incrementAndGet();
+				return;
+			}
+			
+			// the compact snapshot takes over the snapshot's already copied block data,
+			// preventing the full MC chunk from being kept alive while the update is queued
+			ServerApi.INSTANCE.serverChunkSaveEvent(CompactChunkSnapshot.create(snapshot, this.levelWrapper), this.levelWrapper);
+			SAVES_SUBMITTED_COUNT.incrementAndGet();
+			
+			// only remember the hashes once the LOD builder has accepted the chunk,
+			// otherwise a failed submission would cause the next identical save to be skipped
+			synchronized (this.submittedSectionHashesByChunkPos)
+			{
+				// checked under the lock so nothing is recorded after flushAll() clears the hashes
+				if (!this.unloading)
+				{
+					this.submittedSectionHashesByChunkPos.put(chunkPosLong, sectionHashes);
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			LOGGER.warn("Unable to process saved chunk ["+snapshot.getChunkPos()+"], error: ["+e.getMessage()+"].", e);
+		}
+		#endif
+	}
+	
+	
+	
+	//=======//
+	// debug //
+	//=======//
+	
+	public static String getDebugString()
+	{
+		long received = SAVES_RECEIVED_COUNT.get();
+		long skipped = SAVES_MERGED_COUNT.get() + SAVES_UNCHANGED_COUNT.get();
+		return "Chunk saves: ["+received+"] received, ["+SAVES_MERGED_COUNT.get()+"] merged, ["+SAVES_UNCHANGED_COUNT.get()+"] unchanged, ["+SAVES_SUBMITTED_COUNT.get()+"] submitted"
+				+ ((received == 0) ? "" : String.format(" (%.1f%% skipped)", skipped * 100.0 / received));
+	}
+	
+	
+	
+	//================//
+	// helper classes //
+	//================//
+	
+	private static class PendingSave
+	{
+		public final int chunkX;
+		public final int chunkZ;
+		public final long firstSaveMs;
+		/** only modified inside {@link ConcurrentHashMap#compute} */
+		public volatile ChunkSnapshot snapshot;
+		
+		public PendingSave(ChunkSnapshot snapshot, long saveMs)
+		{
+			#if MC_VER >= MC_1_18_2
+			this.chunkX = snapshot.getChunkPos().x;
+			this.chunkZ = snapshot.getChunkPos().z;
+			#else
+			this.chunkX = 0;
+			this.chunkZ = 0;
+			#endif
+			this.firstSaveMs = saveMs;
+			this.snapshot = snapshot;
+		}
+		
+		/** @return when the coalescing window for this chunk ends */
+		public long readyMs() { return this.firstSaveMs + COALESCE_WINDOW_IN_MS; }
+	}
+	
+}
@@ -0,0 +1,208 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.chunk;
+
+#if MC_VER >= MC_1_18_2
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.GlobalPalette;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.UpgradeData;
+import net.minecraft.world.ticks.LevelChunkTicks;
+
+import java.util.EnumMap;
+import java.util.Map;
+#endif
+
+#if MC_VER >= MC_1_19_4
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+#endif
+
+/**
+ * A cheap copy of a chunk's block states and heightmaps,
+ * taken on the server thread so the expensive {@link ChunkWrapper}
+ * creation can be done on one of DH's worker threads. <br><br>
+ *
+ * Block state containers are copied since they can be modified
+ * after the snapshot is taken. <br>
+ * Biome containers are copied before MC 1.19.4 since fillBiomesFromNoise modifies them in place,
+ * after that MC replaces the container instead, so they can be shared. <br><br>
+ *
+ * The section and ticking constructors are significantly different before MC 1.18.2,
+ * so this class is empty for those versions and callers must be compiled out.
+ */
+public class ChunkSnapshot
+{
+	#if MC_VER >= MC_1_18_2
+	private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+	
+	private final Level level;
+	private final ChunkPos chunkPos;
+	private final long inhabitedTime;
+	
+	/** null entries are missing sections */
+	private final PalettedContainer<BlockState>[] blockStatesBySectionIndex;
+	#if MC_VER < MC_1_19_4
+	private final PalettedContainer<Holder<Biome>>[] biomesBySectionIndex;
+	#else
+	private final PalettedContainerRO<Holder<Biome>>[] biomesBySectionIndex;
+	#endif
+	
+	private final EnumMap<Heightmap.Types, long[]> rawHeightmapByType = new EnumMap<>(Heightmap.Types.class);
+	#endif
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	#if MC_VER >= MC_1_18_2
+	/** Should be called on the thread that owns the chunk. */
+	public static ChunkSnapshot create(Level level, ChunkAccess chunk) { return new ChunkSnapshot(level, chunk); }
+	
+	@SuppressWarnings("unchecked")
+	private ChunkSnapshot(Level level, ChunkAccess chunk)
+	{
+		this.level = level;
+		this.chunkPos = chunk.getPos();
+		this.inhabitedTime = chunk.getInhabitedTime();
+		
+		LevelChunkSection[] sections = chunk.getSections();
+		this.blockStatesBySectionIndex = new PalettedContainer[sections.length];
+		#if MC_VER < MC_1_19_4
+		this.biomesBySectionIndex = new PalettedContainer[sections.length];
+		#else
+		this.biomesBySectionIndex = new PalettedContainerRO[sections.length];
+		#endif
+		
+		for (int i = 0; i < sections.length; i++)
+		{
+			LevelChunkSection section = sections[i];
+			if (section != null)
+			{
+				// only the raw data and palette are copied,
+				// block counts are recalculated on the worker thread
+				this.blockStatesBySectionIndex[i] = section.getStates().copy();
+				#if MC_VER < MC_1_19_4
+				this.biomesBySectionIndex[i] = section.getBiomes().copy();
+				#else
+				this.biomesBySectionIndex[i] = section.getBiomes();
+				#endif
+			}
+		}
+		
+		for (Map.Entry<Heightmap.Types, Heightmap> entry : chunk.getHeightmaps())
+		{
+			this.rawHeightmapByType.put(entry.getKey(), entry.getValue().getRawData().clone());
+		}
+	}
+	#endif
+	
+	
+	
+	//=========//
+	// methods //
+	//=========//
+	
+	#if MC_VER >= MC_1_18_2
+	public ChunkPos getChunkPos() { return this.chunkPos; }
+	
+	/**
+	 * Can be called on any thread. <br>
+	 * Hashes each section's palette and raw block state data,
+	 * so two snapshots with equal hashes almost certainly contain the same blocks.
+	 * Biomes aren't included since they very rarely change after generation.
+	 */
+	public long[] getSectionHashes()
+	{
+		long[] hashes = new long[this.blockStatesBySectionIndex.length];
+		for (int i = 0; i < hashes.length; i++)
+		{
+			PalettedContainer<BlockState> container = this.blockStatesBySectionIndex[i];
+			hashes[i] = (container != null) ? hashContainer(container) : 0;
+		}
+		return hashes;
+	}
+	private static long hashContainer(PalettedContainer<BlockState> container)
+	{
+		PalettedContainer.Data<BlockState> data = container.data;
+		
+		long hash = 1;
+		for (long value : data.storage().getRaw())
+		{
+			hash = hash * HASH_MULTIPLIER + value;
+		}
+		
+		// the global palette's storage already contains the global block state IDs
+		Palette<BlockState> palette = data.palette();
+		if (!(palette instanceof GlobalPalette))
+		{
+			for (int i = 0; i < palette.getSize(); i++)
+			{
+				hash = hash * HASH_MULTIPLIER + Block.BLOCK_STATE_REGISTRY.getId(palette.valueFor(i));
+			}
+		}
+		return hash;
+	}
+	
+	/** 
+	 * Can be called on any thread. 
+	 * @return a new chunk containing the snapshot's data 
+	 */
+	public ChunkAccess createChunk()
+	{
+		LevelChunkSection[] sections = new LevelChunkSection[this.blockStatesBySectionIndex.length];
+		for (int i = 0; i < sections.length; i++)
+		{
+			if (this.blockStatesBySectionIndex[i] != null)
+			{
+				#if MC_VER < MC_1_20_1
+				sections[i] = new LevelChunkSection(this.level.getSectionYFromSectionIndex(i), this.blockStatesBySectionIndex[i], this.biomesBySectionIndex[i]);
+				#else
+				sections[i] = new LevelChunkSection(this.blockStatesBySectionIndex[i], this.biomesBySectionIndex[i]);
+				#endif
+			}
+		}
+		
+		LevelChunk chunk = new LevelChunk(this.level, this.chunkPos, UpgradeData.EMPTY, 
+				new LevelChunkTicks<>(), new LevelChunkTicks<>(), 
+				this.inhabitedTime, sections, null, null);
+		for (Map.Entry<Heightmap.Types, long[]> entry : this.rawHeightmapByType.entrySet())
+		{
+			chunk.setHeightmap(entry.getKey(), entry.getValue());
+		}
+		// the source chunk's lighting was validated before the snapshot was taken
+		chunk.setLightCorrect(true);
+		
+		return chunk;
+	}
+	#endif
+	
+}
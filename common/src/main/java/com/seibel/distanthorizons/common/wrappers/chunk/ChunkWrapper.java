@@ -42,6 +42,7 @@ import net.minecraft.world.level.levelgen.Heightmap;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 #if MC_VER >= MC_1_17_1
 import net.minecraft.core.QuartPos;
@@ -67,6 +68,16 @@ import net.minecraft.world.level.chunk.LevelChunkSection;
 import net.minecraft.world.level.chunk.LevelChunkSection;
 #endif
 
+#if MC_VER >= MC_1_18_2
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.Holder;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.GlobalPalette;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PalettedContainer;
+#endif
+
 #if MC_VER <= MC_1_20_4
 import net.minecraft.world.level.chunk.ChunkStatus;
 #else
@@ -86,6 +97,11 @@ public class ChunkWrapper implements IChunkWrapper
 	private final ChunkAccess chunk;
 	private final DhChunkPos chunkPos;
 	private final ILevelWrapper wrappedLevel;
+	/** 
+	 * The wrapper that owns the lazily calculated chunk data (light positions, biomes). <br>
+	 * Will be this wrapper unless it was handed out by {@link ChunkWrapperCache}.
+	 */
+	private final ChunkWrapper canonicalWrapper;
 	
 	private boolean isDhBlockLightCorrect = false;
 	private boolean isDhSkyLightCorrect = false;
@@ -93,15 +109,25 @@ public class ChunkWrapper implements IChunkWrapper
 	private ChunkLightStorage blockLightStorage;
 	private ChunkLightStorage skyLightStorage;
 	
-	private ArrayList<DhBlockPos> blockLightPosList = null;
+	private volatile ArrayList<DhBlockPos> blockLightPosList = null;
+	/** lazily populated by {@link ChunkWrapper#getPackedWorldBlockLightPositions()} */
+	private volatile long[] packedBlockLightPositions = null;
+	
+	#if MC_VER >= MC_1_18_2
+	/** 
+	 * lazily populated by {@link ChunkWrapper#getSectionBiomes(int)}, 
+	 * each section's array is fully built before it's published so other threads never see a partial array 
+	 */
+	private volatile AtomicReferenceArray<IBiomeWrapper[]> biomesBySectionIndex = null;
+	#endif
 	
 	private int minNonEmptyHeight = Integer.MIN_VALUE;
 	private int maxNonEmptyHeight = Integer.MAX_VALUE;
 	
-	/** will be null if we are using MC heightmaps */
-	private final int[][] solidHeightMap;
-	/** will be null if we are using MC heightmaps */
-	private final int[][] lightBlockingHeightMap;
+	/** will be null if we are using MC heightmaps, indexed via {@link ChunkWrapper#getHeightMapIndex(int, int)} */
+	private final short[] solidHeightMap;
+	/** will be null if we are using MC heightmaps, indexed via {@link ChunkWrapper#getHeightMapIndex(int, int)} */
+	private final short[] lightBlockingHeightMap;
 	
 	
 	
@@ -114,12 +140,13 @@ public class ChunkWrapper implements IChunkWrapper
 		this.chunk = chunk;
 		this.wrappedLevel = wrappedLevel;
 		this.chunkPos = new DhChunkPos(chunk.getPos().x, chunk.getPos().z);
+		this.canonicalWrapper = this;
 		
 		// use DH heightmaps if requested
 		if (Config.Common.LodBuilding.recalculateChunkHeightmaps.get())
 		{
-			this.solidHeightMap = new int[LodUtil.CHUNK_WIDTH][LodUtil.CHUNK_WIDTH];
-			this.lightBlockingHeightMap = new int[LodUtil.CHUNK_WIDTH][LodUtil.CHUNK_WIDTH];
+			this.solidHeightMap = new short[LodUtil.CHUNK_WIDTH * LodUtil.CHUNK_WIDTH];
+			this.lightBlockingHeightMap = new short[LodUtil.CHUNK_WIDTH * LodUtil.CHUNK_WIDTH];
 			
 			this.recalculateDhHeightMapsIfNeeded();
 		}
@@ -130,6 +157,24 @@ public class ChunkWrapper implements IChunkWrapper
 		}
 	}
 	
+	/**
+	 * Creates a wrapper that shares the given wrapper's heightmaps and lazily calculated data,
+	 * but has its own DH lighting, so lighting one copy doesn't affect any other copy. <br>
+	 * Used by {@link ChunkWrapperCache}.
+	 */
+	ChunkWrapper(ChunkWrapper canonicalWrapper)
+	{
+		this.chunk = canonicalWrapper.chunk;
+		this.wrappedLevel = canonicalWrapper.wrappedLevel;
+		this.chunkPos = canonicalWrapper.chunkPos;
+		this.canonicalWrapper = canonicalWrapper;
+		
+		this.minNonEmptyHeight = canonicalWrapper.minNonEmptyHeight;
+		this.maxNonEmptyHeight = canonicalWrapper.maxNonEmptyHeight;
+		this.solidHeightMap = canonicalWrapper.solidHeightMap;
+		this.lightBlockingHeightMap = canonicalWrapper.lightBlockingHeightMap;
+	}
+	
 	
 	
 	//=========//
@@ -260,48 +305,175 @@ public class ChunkWrapper implements IChunkWrapper
 		// recalculate heightmaps if needed
 		if (this.solidHeightMap != null)
 		{
-			for (int x = 0; x < LodUtil.CHUNK_WIDTH; x++)
+			#if MC_VER < MC_1_18_2
+			this.recalculateDhHeightMapsPerBlock();
+			#else
+			this.recalculateDhHeightMapsFromPalettes();
+			#endif
+		}
+	}
+	#if MC_VER < MC_1_18_2
+	private void recalculateDhHeightMapsPerBlock()
+	{
+		for (int x = 0; x < LodUtil.CHUNK_WIDTH; x++)
+		{
+			for (int z = 0; z < LodUtil.CHUNK_WIDTH; z++)
+			{
+				int minInclusiveBuildHeight = this.getMinNonEmptyHeight();
+				// if no blocks are found the height map will be at the bottom of the world
+				int solidHeight = minInclusiveBuildHeight;
+				int lightBlockingHeight = minInclusiveBuildHeight;
+				
+				
+				int y = this.getMaxNonEmptyHeight(); //this.getExclusiveMaxBuildHeight();
+				IBlockStateWrapper block = this.getBlockState(x, y, z);
+				while (// go down until we reach the minimum build height
+						y > minInclusiveBuildHeight
+						// keep going until we find both height map values
+						&& (solidHeight == minInclusiveBuildHeight || lightBlockingHeight == minInclusiveBuildHeight))
+				{
+					// is this block solid?
+					if (solidHeight == minInclusiveBuildHeight
+							&& block.isSolid())
+					{
+						solidHeight = y;
+					}
+					
+					// is this block light blocking?
+					if (lightBlockingHeight == minInclusiveBuildHeight
+							&& block.getOpacity() != LodUtil.BLOCK_FULLY_TRANSPARENT)
+					{
+						lightBlockingHeight = y;
+					}
+					
+					// get the next block down
+					y--;
+					block = this.getBlockState(x, y, z);
+				}
+				
+				int index = getHeightMapIndex(x, z);
+				this.solidHeightMap[index] = (short) solidHeight;
+				this.lightBlockingHeightMap[index] = (short) lightBlockingHeight;
+			}
+		}
+	}
+	#else
+	/** 
+	 * Classifies each section's palette entries once, 
+	 * then walks each column top-down skipping air sections entirely.
+	 */
+	private void recalculateDhHeightMapsFromPalettes()
+	{
+		// if no blocks are found the height map will be at the bottom of the world
+		short minInclusiveBuildHeight = (short) this.getMinNonEmptyHeight();
+		Arrays.fill(this.solidHeightMap, minInclusiveBuildHeight);
+		Arrays.fill(this.lightBlockingHeightMap, minInclusiveBuildHeight);
+		
+		
+		// classify each section's palette
+		LevelChunkSection[] sections = this.chunk.getSections();
+		@SuppressWarnings("unchecked")
+		PalettedContainer.Data<BlockState>[] dataBySectionIndex = new PalettedContainer.Data[sections.length];
+		boolean[][] solidByPaletteId = new boolean[sections.length][];
+		boolean[][] lightBlockingByPaletteId = new boolean[sections.length][];
+		for (int i = 0; i < sections.length; i++)
+		{
+			// null data marks a section that can be skipped
+			if (sections[i] == null || isChunkSectionEmpty(sections[i]))
 			{
-				for (int z = 0; z < LodUtil.CHUNK_WIDTH; z++)
+				continue;
+			}
+			
+			PalettedContainer.Data<BlockState> data = sections[i].getStates().data;
+			Palette<BlockState> palette = data.palette();
+			
+			// MC's global palette contains every block state, so those sections are classified block by block instead
+			if (!(palette instanceof GlobalPalette))
+			{
+				boolean[] solid = new boolean[palette.getSize()];
+				boolean[] lightBlocking = new boolean[palette.getSize()];
+				for (int paletteId = 0; paletteId < solid.length; paletteId++)
+				{
+					IBlockStateWrapper block = BlockStateWrapper.fromBlockState(palette.valueFor(paletteId), this.wrappedLevel);
+					solid[paletteId] = block.isSolid();
+					lightBlocking[paletteId] = block.getOpacity() != LodUtil.BLOCK_FULLY_TRANSPARENT;
+				}
+				
+				// sections filled with a single non-solid, transparent block (IE water or cave air) can be skipped like air
+				if (solid.length == 1 && !solid[0] && !lightBlocking[0])
+				{
+					continue;
+				}
+				
+				solidByPaletteId[i] = solid;
+				lightBlockingByPaletteId[i] = lightBlocking;
+			}
+			dataBySectionIndex[i] = data;
+		}
+		
+		
+		// walk each column
+		for (int x = 0; x < LodUtil.CHUNK_WIDTH; x++)
+		{
+			for (int z = 0; z < LodUtil.CHUNK_WIDTH; z++)
+			{
+				boolean solidFound = false;
+				boolean lightBlockingFound = false;
+				int index = getHeightMapIndex(x, z);
+				
+				for (int sectionIndex = sections.length - 1; sectionIndex >= 0 && !(solidFound && lightBlockingFound); sectionIndex--)
 				{
-					int minInclusiveBuildHeight = this.getMinNonEmptyHeight();
-					// if no blocks are found the height map will be at the bottom of the world
-					int solidHeight = minInclusiveBuildHeight;
-					int lightBlockingHeight = minInclusiveBuildHeight;
+					PalettedContainer.Data<BlockState> data = dataBySectionIndex[sectionIndex];
+					if (data == null)
+					{
+						continue;
+					}
 					
+					boolean[] solid = solidByPaletteId[sectionIndex];
+					boolean[] lightBlocking = lightBlockingByPaletteId[sectionIndex];
+					int sectionMinY = this.getChunkSectionMinHeight(sectionIndex);
 					
-					int y = this.getMaxNonEmptyHeight(); //this.getExclusiveMaxBuildHeight();
-					IBlockStateWrapper block = this.getBlockState(x, y, z);
-					while (// go down until we reach the minimum build height
-							y > minInclusiveBuildHeight
-							// keep going until we find both height map values
-							&& (solidHeight == minInclusiveBuildHeight || lightBlockingHeight == minInclusiveBuildHeight))
+					for (int sectionRelY = 15; sectionRelY >= 0; sectionRelY--)
 					{
-						// is this block solid?
-						if (solidHeight == minInclusiveBuildHeight
-								&& block.isSolid())
+						int paletteId = data.storage().get(getSectionStorageIndex(x, sectionRelY, z));
+						
+						boolean isSolid;
+						boolean isLightBlocking;
+						if (solid != null)
+						{
+							isSolid = solid[paletteId];
+							isLightBlocking = lightBlocking[paletteId];
+						}
+						else
 						{
-							solidHeight = y;
+							// global palette IDs are block state registry IDs
+							IBlockStateWrapper block = BlockStateWrapper.fromBlockStateId(paletteId, this.wrappedLevel);
+							isSolid = block.isSolid();
+							isLightBlocking = block.getOpacity() != LodUtil.BLOCK_FULLY_TRANSPARENT;
 						}
 						
-						// is this block light blocking?
-						if (lightBlockingHeight == minInclusiveBuildHeight
-								&& block.getOpacity() != LodUtil.BLOCK_FULLY_TRANSPARENT)
+						if (!solidFound && isSolid)
+						{
+							solidFound = true;
+							this.solidHeightMap[index] = (short) (sectionMinY + sectionRelY);
+						}
+						if (!lightBlockingFound && isLightBlocking)
 						{
-							lightBlockingHeight = y;
+							lightBlockingFound = true;
+							this.lightBlockingHeightMap[index] = (short) (sectionMinY + sectionRelY);
 						}
 						
-						// get the next block down
-						y--;
-						block = this.getBlockState(x, y, z);
+						if (solidFound && lightBlockingFound)
+						{
+							break;
+						}
 					}
-					
-					this.solidHeightMap[x][z] = solidHeight;
-					this.lightBlockingHeightMap[x][z] = lightBlockingHeight;
 				}
 			}
 		}
 	}
+	#endif
+	private static int getHeightMapIndex(int relX, int relZ) { return (relX * LodUtil.CHUNK_WIDTH) + relZ; }
 	
 	@Override
 	public int getSolidHeightMapValue(int xRel, int zRel) 
@@ -315,7 +487,7 @@ public class ChunkWrapper implements IChunkWrapper
 		}
 		else
 		{
-			return this.solidHeightMap[xRel][zRel];
+			return this.solidHeightMap[getHeightMapIndex(xRel, zRel)];
 		}
 	}
 	
@@ -330,7 +502,7 @@ public class ChunkWrapper implements IChunkWrapper
 		}
 		else
 		{
-			return this.lightBlockingHeightMap[xRel][zRel];
+			return this.lightBlockingHeightMap[getHeightMapIndex(xRel, zRel)];
 		} 
 	}
 	
@@ -346,17 +518,91 @@ public class ChunkWrapper implements IChunkWrapper
 		return BiomeWrapper.getBiomeWrapper(this.chunk.getBiomes().getNoiseBiome(
 				QuartPos.fromBlock(relX), QuartPos.fromBlock(relY), QuartPos.fromBlock(relZ)),
 				this.wrappedLevel);
-		#elif MC_VER < MC_1_18_2
-		return BiomeWrapper.getBiomeWrapper(this.chunk.getNoiseBiome(
-				QuartPos.fromBlock(relX), QuartPos.fromBlock(relY), QuartPos.fromBlock(relZ)),
-				this.wrappedLevel);
-		#else 
-		//Now returns a Holder<Biome> instead of Biome
-		return BiomeWrapper.getBiomeWrapper(this.chunk.getNoiseBiome(
-				QuartPos.fromBlock(relX), QuartPos.fromBlock(relY), QuartPos.fromBlock(relZ)),
-				this.wrappedLevel);
+		#else
+		// clamp to the chunk's height, the same as MC does
+		int y = Math.max(this.getInclusiveMinBuildHeight(), Math.min(relY, this.getExclusiveMaxBuildHeight() - 1));
+		int sectionIndex = (y - this.getInclusiveMinBuildHeight()) >> 4;
+		
+		IBiomeWrapper[] biomes = this.getSectionBiomes(sectionIndex);
+		if (biomes.length == 1)
+		{
+			// uniform section
+			return biomes[0];
+		}
+		return biomes[getSectionBiomeIndex(QuartPos.fromBlock(relX) & 3, QuartPos.fromBlock(y) & 3, QuartPos.fromBlock(relZ) & 3)];
 		#endif
 	}
+	#if MC_VER >= MC_1_18_2
+	/**
+	 * Resolves the given section's 4x4x4 biome cells to {@link IBiomeWrapper}s the first time it's requested. <br>
+	 * If multiple threads request the same section at once the biomes may be resolved more than once,
+	 * that's fine since every thread will produce the same result.
+	 * 
+	 * @return an array with a single entry if the section only contains one biome, 
+	 *          otherwise an array indexed via {@link ChunkWrapper#getSectionBiomeIndex(int, int, int)}
+	 */
+	private IBiomeWrapper[] getSectionBiomes(int sectionIndex)
+	{
+		if (this.canonicalWrapper != this)
+		{
+			return this.canonicalWrapper.getSectionBiomes(sectionIndex);
+		}
+		
+		AtomicReferenceArray<IBiomeWrapper[]> biomesBySectionIndex = this.biomesBySectionIndex;
+		if (biomesBySectionIndex == null)
+		{
+			biomesBySectionIndex = new AtomicReferenceArray<>(this.chunk.getSections().length);
+			this.biomesBySectionIndex = biomesBySectionIndex;
+		}
+		
+		IBiomeWrapper[] biomes = biomesBySectionIndex.get(sectionIndex);
+		if (biomes != null)
+		{
+			return biomes;
+		}
+		
+		
+		LevelChunkSection section = this.chunk.getSections()[sectionIndex];
+		int sectionQuartMinY = QuartPos.fromBlock(this.getChunkSectionMinHeight(sectionIndex));
+		
+		biomes = new IBiomeWrapper[64];
+		boolean uniform = true;
+		Holder<Biome> lastHolder = null;
+		IBiomeWrapper lastWrapper = null;
+		for (int quartX = 0; quartX < 4; quartX++)
+		{
+			for (int quartY = 0; quartY < 4; quartY++)
+			{
+				for (int quartZ = 0; quartZ < 4; quartZ++)
+				{
+					Holder<Biome> holder = (section != null) 
+							? section.getNoiseBiome(quartX, quartY, quartZ)
+							: this.chunk.getNoiseBiome(quartX, sectionQuartMinY + quartY, quartZ);
+					
+					// the palette is tiny, so only look up the wrapper when the biome changes
+					if (holder != lastHolder)
+					{
+						if (lastHolder != null)
+						{
+							uniform = false;
+						}
+						lastHolder = holder;
+						lastWrapper = BiomeWrapper.getBiomeWrapper(holder, this.wrappedLevel);
+					}
+					biomes[getSectionBiomeIndex(quartX, quartY, quartZ)] = lastWrapper;
+				}
+			}
+		}
+		
+		if (uniform)
+		{
+			biomes = new IBiomeWrapper[] { lastWrapper };
+		}
+		biomesBySectionIndex.set(sectionIndex, biomes);
+		return biomes;
+	}
+	private static int getSectionBiomeIndex(int quartX, int quartY, int quartZ) { return (((quartY << 2) | quartZ) << 2) | quartX; }
+	#endif
 	
 	@Override
 	public IBlockStateWrapper getBlockState(int relX, int relY, int relZ)
@@ -428,6 +674,217 @@ public class ChunkWrapper implements IChunkWrapper
 	
 	
 	
+	//===================//
+	// column extraction //
+	//===================//
+	
+	/**
+	 * Walks every column in this chunk from top to bottom and passes each
+	 * run of identical block, biome and light values to the given consumer. <br><br>
+	 * 
+	 * This is significantly faster than calling {@link ChunkWrapper#getBlockState(int, int, int)}
+	 * for every block since each section's palette is only converted to {@link IBlockStateWrapper}'s once
+	 * and sections that only contain a single block state don't need to be read block by block.
+	 * 
+	 * @param includeLighting if false runs won't be split by light changes
+	 *                        and both light values will be passed in as 0.
+	 */
+	public void forEachColumnSegment(boolean includeLighting, IColumnSegmentConsumer consumer)
+	{
+		#if MC_VER < MC_1_18_2
+		this.forEachColumnSegmentPerBlock(includeLighting, consumer);
+		#else
+		LevelChunkSection[] sections = this.chunk.getSections();
+		int maxBuildHeight = this.getExclusiveMaxBuildHeight();
+		
+		
+		// convert each section's palette once
+		@SuppressWarnings("unchecked")
+		PalettedContainer.Data<BlockState>[] dataBySectionIndex = new PalettedContainer.Data[sections.length];
+		// null if the section uses MC's global palette, which is too large to convert up front
+		IBlockStateWrapper[][] wrappersBySectionIndex = new IBlockStateWrapper[sections.length][];
+		for (int i = 0; i < sections.length; i++)
+		{
+			if (sections[i] == null || isChunkSectionEmpty(sections[i]))
+			{
+				wrappersBySectionIndex[i] = new IBlockStateWrapper[] { BlockStateWrapper.AIR };
+				continue;
+			}
+			
+			PalettedContainer.Data<BlockState> data = sections[i].getStates().data;
+			dataBySectionIndex[i] = data;
+			
+			Palette<BlockState> palette = data.palette();
+			if (!(palette instanceof GlobalPalette))
+			{
+				IBlockStateWrapper[] wrappers = new IBlockStateWrapper[palette.getSize()];
+				for (int paletteId = 0; paletteId < wrappers.length; paletteId++)
+				{
+					wrappers[paletteId] = BlockStateWrapper.fromBlockState(palette.valueFor(paletteId), this.wrappedLevel);
+				}
+				wrappersBySectionIndex[i] = wrappers;
+			}
+		}
+		
+		
+		Holder<Biome> lastBiomeHolder = null;
+		IBiomeWrapper lastBiome = BiomeWrapper.EMPTY_WRAPPER;
+		
+		for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+		{
+			for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+			{
+				// the current run covers [runBottomY, runTopY)
+				int runTopY = maxBuildHeight;
+				int runBottomY = maxBuildHeight;
+				IBlockStateWrapper runBlock = null;
+				IBiomeWrapper runBiome = null;
+				int runBlockLight = 0;
+				int runSkyLight = 0;
+				
+				for (int sectionIndex = sections.length - 1; sectionIndex >= 0; sectionIndex--)
+				{
+					LevelChunkSection section = sections[sectionIndex];
+					PalettedContainer.Data<BlockState> data = dataBySectionIndex[sectionIndex];
+					IBlockStateWrapper[] paletteWrappers = wrappersBySectionIndex[sectionIndex];
+					boolean uniformSection = (paletteWrappers != null && paletteWrappers.length == 1);
+					int sectionMinY = this.getChunkSectionMinHeight(sectionIndex);
+					
+					// biomes are stored in 4x4x4 cells
+					for (int quartY = 3; quartY >= 0; quartY--)
+					{
+						int quartMinY = sectionMinY + (quartY * 4);
+						
+						Holder<Biome> biomeHolder = (section != null) 
+								? section.getNoiseBiome(relX >> 2, quartY, relZ >> 2) 
+								: this.chunk.getNoiseBiome(relX >> 2, QuartPos.fromBlock(quartMinY), relZ >> 2);
+						if (biomeHolder != lastBiomeHolder)
+						{
+							lastBiomeHolder = biomeHolder;
+							lastBiome = BiomeWrapper.getBiomeWrapper(biomeHolder, this.wrappedLevel);
+						}
+						IBiomeWrapper biome = lastBiome;
+						
+						// uniform cells can be added to the current run without looking at each block
+						if (uniformSection && !includeLighting
+							&& paletteWrappers[0] == runBlock && biome == runBiome)
+						{
+							runBottomY = quartMinY;
+							continue;
+						}
+						
+						for (int y = quartMinY + 3; y >= quartMinY; y--)
+						{
+							IBlockStateWrapper block;
+							if (uniformSection)
+							{
+								block = paletteWrappers[0];
+							}
+							else
+							{
+								int paletteId = data.storage().get(getSectionStorageIndex(relX, y - sectionMinY, relZ));
+								block = (paletteWrappers != null) 
+										? paletteWrappers[paletteId] 
+										: BlockStateWrapper.fromBlockStateId(paletteId, this.wrappedLevel);
+							}
+							
+							int blockLight = includeLighting ? this.getDhBlockLight(relX, y, relZ) : 0;
+							int skyLight = includeLighting ? this.getDhSkyLight(relX, y, relZ) : 0;
+							
+							if (block != runBlock || biome != runBiome
+								|| blockLight != runBlockLight || skyLight != runSkyLight)
+							{
+								if (runBlock != null)
+								{
+									consumer.accept(relX, relZ, runBottomY, runTopY - runBottomY, runBlock, runBiome, runBlockLight, runSkyLight);
+								}
+								
+								runTopY = y + 1;
+								runBlock = block;
+								runBiome = biome;
+								runBlockLight = blockLight;
+								runSkyLight = skyLight;
+							}
+							runBottomY = y;
+						}
+					}
+				}
+				
+				if (runBlock != null)
+				{
+					consumer.accept(relX, relZ, runBottomY, runTopY - runBottomY, runBlock, runBiome, runBlockLight, runSkyLight);
+				}
+			}
+		}
+		#endif
+	}
+	#if MC_VER >= MC_1_18_2
+	/** matches the index order used by MC's section block state containers */
+	private static int getSectionStorageIndex(int relX, int sectionRelY, int relZ) { return (((sectionRelY << 4) | relZ) << 4) | relX; }
+	#endif
+	
+	/** Fallback for MC versions where the section palettes can't be accessed directly. */
+	private void forEachColumnSegmentPerBlock(boolean includeLighting, IColumnSegmentConsumer consumer)
+	{
+		int minBuildHeight = this.getInclusiveMinBuildHeight();
+		int maxBuildHeight = this.getExclusiveMaxBuildHeight();
+		
+		for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+		{
+			for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+			{
+				int runTopY = maxBuildHeight;
+				IBlockStateWrapper runBlock = null;
+				IBiomeWrapper runBiome = null;
+				int runBlockLight = 0;
+				int runSkyLight = 0;
+				
+				for (int y = maxBuildHeight - 1; y >= minBuildHeight; y--)
+				{
+					IBlockStateWrapper block = this.getBlockState(relX, y, relZ);
+					IBiomeWrapper biome = this.getBiome(relX, y, relZ);
+					int blockLight = includeLighting ? this.getDhBlockLight(relX, y, relZ) : 0;
+					int skyLight = includeLighting ? this.getDhSkyLight(relX, y, relZ) : 0;
+					
+					if (block != runBlock || biome != runBiome
+						|| blockLight != runBlockLight || skyLight != runSkyLight)
+					{
+						if (runBlock != null)
+						{
+							consumer.accept(relX, relZ, y + 1, runTopY - (y + 1), runBlock, runBiome, runBlockLight, runSkyLight);
+						}
+						
+						runTopY = y + 1;
+						runBlock = block;
+						runBiome = biome;
+						runBlockLight = blockLight;
+						runSkyLight = skyLight;
+					}
+				}
+				
+				if (runBlock != null)
+				{
+					consumer.accept(relX, relZ, minBuildHeight, runTopY - minBuildHeight, runBlock, runBiome, runBlockLight, runSkyLight);
+				}
+			}
+		}
+	}
+	
+	/** @see ChunkWrapper#forEachColumnSegment(boolean, IColumnSegmentConsumer) */
+	@FunctionalInterface
+	public interface IColumnSegmentConsumer
+	{
+		/**
+		 * Segments are passed in top to bottom for each column.
+		 * 
+		 * @param minY the inclusive bottom of this segment
+		 * @param height how many blocks tall this segment is
+		 */
+		void accept(int relX, int relZ, int minY, int height, IBlockStateWrapper block, IBiomeWrapper biome, int blockLight, int skyLight);
+	}
+	
+	
+	
 	//==========//
 	// lighting //
 	//==========//
@@ -495,39 +952,116 @@ public class ChunkWrapper implements IChunkWrapper
 	public void setSkyLightStorage(ChunkLightStorage lightStorage) { this.skyLightStorage = lightStorage; }
 	
 	
-	/** 
-	 * FIXME synchronized is necessary for a rare issue where this method is called from two separate threads at the same time
-	 *  before the list has finished populating.
-	 */
 	@Override
-	public synchronized ArrayList<DhBlockPos> getWorldBlockLightPosList()
+	public ArrayList<DhBlockPos> getWorldBlockLightPosList()
 	{
-		// only populate the list once
-		if (this.blockLightPosList == null)
+		if (this.canonicalWrapper != this)
 		{
-			this.blockLightPosList = new ArrayList<>();
-			
+			return this.canonicalWrapper.getWorldBlockLightPosList();
+		}
+		
+		// only populate the list once,
+		// if multiple threads get here at the same time they will all build identical lists
+		ArrayList<DhBlockPos> blockLightPosList = this.blockLightPosList;
+		if (blockLightPosList == null)
+		{
+			long[] packedPositions = this.getPackedWorldBlockLightPositions();
 			
-			#if MC_VER < MC_1_20_1
-			this.chunk.getLights().forEach((blockPos) ->
+			blockLightPosList = new ArrayList<>(packedPositions.length);
+			for (long packedPos : packedPositions)
 			{
-				this.blockLightPosList.add(new DhBlockPos(blockPos.getX(), blockPos.getY(), blockPos.getZ()));
-			});
-			#else
-			this.chunk.findBlockLightSources((blockPos, blockState) ->
+				blockLightPosList.add(new DhBlockPos(BlockPos.getX(packedPos), BlockPos.getY(packedPos), BlockPos.getZ(packedPos)));
+			}
+			this.blockLightPosList = blockLightPosList;
+		}
+		
+		return blockLightPosList;
+	}
+	
+	/**
+	 * Returns the world position of every light emitting block in this chunk,
+	 * packed via {@link BlockPos#asLong(int, int, int)}. <br>
+	 * Unlike {@link ChunkWrapper#getWorldBlockLightPosList()} this doesn't create an object per position.
+	 */
+	public long[] getPackedWorldBlockLightPositions()
+	{
+		if (this.canonicalWrapper != this)
+		{
+			return this.canonicalWrapper.getPackedWorldBlockLightPositions();
+		}
+		
+		long[] packedPositions = this.packedBlockLightPositions;
+		if (packedPositions == null)
+		{
+			packedPositions = this.findPackedWorldBlockLightPositions();
+			this.packedBlockLightPositions = packedPositions;
+		}
+		return packedPositions;
+	}
+	private long[] findPackedWorldBlockLightPositions()
+	{
+		#if MC_VER < MC_1_18_2
+		return this.chunk.getLights().mapToLong(BlockPos::asLong).toArray();
+		#else
+		LongArrayList packedPositions = new LongArrayList();
+		int minBlockX = this.chunk.getPos().getMinBlockX();
+		int minBlockZ = this.chunk.getPos().getMinBlockZ();
+		
+		LevelChunkSection[] sections = this.chunk.getSections();
+		for (int sectionIndex = 0; sectionIndex < sections.length; sectionIndex++)
+		{
+			LevelChunkSection section = sections[sectionIndex];
+			if (section == null || isChunkSectionEmpty(section))
 			{
-				DhBlockPos pos = new DhBlockPos(blockPos.getX(), blockPos.getY(), blockPos.getZ());
-				
-				// this can be uncommented if MC decides to return relative block positions in the future instead of world positions
-				//pos.mutateToChunkRelativePos(pos);
-				//pos.mutateOffset(this.chunkPos.getMinBlockX(), 0, this.chunkPos.getMinBlockZ(), pos);
+				continue;
+			}
+			
+			PalettedContainer.Data<BlockState> data = section.getStates().data;
+			Palette<BlockState> palette = data.palette();
+			
+			// null if MC's global palette is in use, in which case each block has to be checked individually
+			boolean[] emittingByPaletteId = null;
+			if (!(palette instanceof GlobalPalette))
+			{
+				boolean anyEmitting = false;
+				emittingByPaletteId = new boolean[palette.getSize()];
+				for (int paletteId = 0; paletteId < emittingByPaletteId.length; paletteId++)
+				{
+					emittingByPaletteId[paletteId] = palette.valueFor(paletteId).getLightEmission() != 0;
+					anyEmitting |= emittingByPaletteId[paletteId];
+				}
 				
-				this.blockLightPosList.add(pos);
-			});
-			#endif
+				// most sections don't contain any light sources
+				if (!anyEmitting)
+				{
+					continue;
+				}
+			}
+			
+			
+			int sectionMinY = this.getChunkSectionMinHeight(sectionIndex);
+			for (int sectionRelY = 0; sectionRelY < 16; sectionRelY++)
+			{
+				for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+				{
+					for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+					{
+						int paletteId = data.storage().get(getSectionStorageIndex(relX, sectionRelY, relZ));
+						boolean emitting = (emittingByPaletteId != null)
+								? emittingByPaletteId[paletteId]
+								: palette.valueFor(paletteId).getLightEmission() != 0;
+						
+						if (emitting)
+						{
+							packedPositions.add(BlockPos.asLong(minBlockX + relX, sectionMinY + sectionRelY, minBlockZ + relZ));
+						}
+					}
+				}
+			}
 		}
 		
-		return this.blockLightPosList;
+		return packedPositions.toLongArray();
+		#endif
 	}
 	
 	
@@ -536,8 +1070,23 @@ public class ChunkWrapper implements IChunkWrapper
 	// other methods //
 	//===============//
 	
+	/** 
+	 * Only does cache lookups, so it's cheap enough to call frequently.
+	 * @return true while the chunk is loaded and this wrapper's cached data hasn't been invalidated,
+	 *          IE the level would still hand out a copy of the same canonical wrapper.
+	 */
 	@Override
-	public boolean isStillValid() { return this.wrappedLevel.tryGetChunk(this.chunkPos) == this; }
+	public boolean isStillValid() { return ChunkWrapperCache.isStillCurrent(this.wrappedLevel, this.chunk, this.canonicalWrapper); }
+	
+	/** Drops the lazily calculated data so it's re-calculated from the chunk's current state. */
+	void clearCachedChunkData()
+	{
+		this.blockLightPosList = null;
+		this.packedBlockLightPositions = null;
+		#if MC_VER >= MC_1_18_2
+		this.biomesBySectionIndex = null;
+		#endif
+	}
 	
 	
 	
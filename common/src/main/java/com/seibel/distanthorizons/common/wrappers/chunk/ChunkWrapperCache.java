@@ -0,0 +1,201 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.chunk;
+
+import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
+import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import com.seibel.distanthorizons.core.pos.DhChunkPos;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
+import net.minecraft.world.level.chunk.ChunkAccess;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds a single canonical {@link ChunkWrapper} for each loaded chunk in a level,
+ * so repeated lookups don't re-run the wrapper's constructor
+ * and {@link ChunkWrapper#isStillValid()} can actually return true. <br><br>
+ * 
+ * The canonical wrapper is never handed out directly,
+ * each lookup gets a cheap copy that shares the canonical wrapper's heightmaps, 
+ * light source positions and biomes but has its own DH lighting. 
+ * This way lighting done by one user can't leak into another. <br><br>
+ * 
+ * Both the chunks and wrappers are weakly referenced, 
+ * so unloaded chunks and unused wrappers can still be garbage collected. <br>
+ * Wrappers are invalidated whenever their chunk is loaded (including when the server re-sends it),
+ * saved, has a block changed on the server, or is edited by the local player, 
+ * so stale heightmaps or light sources aren't handed out.
+ * 
+ * @see ServerLevelWrapper#getChunkWrapperCache()
+ * @see ClientLevelWrapper#getChunkWrapperCache()
+ */
+public class ChunkWrapperCache
+{
+	// counters across all levels //
+	private static final AtomicLong HIT_COUNT = new AtomicLong(0);
+	private static final AtomicLong MISS_COUNT = new AtomicLong(0);
+	
+	
+	private final ILevelWrapper levelWrapper;
+	
+	/** 
+	 * weak values are necessary since each wrapper strongly references its chunk,
+	 * which would otherwise prevent the key from ever being collected.
+	 * Synchronized on itself.
+	 */
+	private final Map<ChunkAccess, WeakReference<ChunkWrapper>> wrapperByChunk = new WeakHashMap<>();
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	public ChunkWrapperCache(ILevelWrapper levelWrapper) { this.levelWrapper = levelWrapper; }
+	
+	
+	
+	//=========//
+	// methods //
+	//=========//
+	
+	/** 
+	 * Can be called from any thread. 
+	 * @return a new copy of the chunk's canonical wrapper, with its own DH lighting
+	 */
+	public ChunkWrapper getOrCreate(ChunkAccess chunk)
+	{
+		ChunkWrapper wrapper = this.get(chunk);
+		if (wrapper != null)
+		{
+			HIT_COUNT.incrementAndGet();
+			return new ChunkWrapper(wrapper);
+		}
+		MISS_COUNT.incrementAndGet();
+		
+		
+		// created outside the lock since the constructor can be expensive
+		ChunkWrapper newWrapper = new ChunkWrapper(chunk, this.levelWrapper);
+		synchronized (this.wrapperByChunk)
+		{
+			// another thread may have created a wrapper in the meantime
+			WeakReference<ChunkWrapper> existingRef = this.wrapperByChunk.get(chunk);
+			ChunkWrapper existingWrapper = (existingRef != null) ? existingRef.get() : null;
+			if (existingWrapper != null)
+			{
+				return new ChunkWrapper(existingWrapper);
+			}
+			
+			this.wrapperByChunk.put(chunk, new WeakReference<>(newWrapper));
+			return new ChunkWrapper(newWrapper);
+		}
+	}
+	/** Doesn't create a wrapper or count towards the hit rate. */
+	public boolean isCanonicalWrapper(ChunkAccess chunk, ChunkWrapper canonicalWrapper) { return this.get(chunk) == canonicalWrapper; }
+	private ChunkWrapper get(ChunkAccess chunk)
+	{
+		WeakReference<ChunkWrapper> wrapperRef;
+		synchronized (this.wrapperByChunk)
+		{
+			wrapperRef = this.wrapperByChunk.get(chunk);
+		}
+		return (wrapperRef != null) ? wrapperRef.get() : null;
+	}
+	
+	/** Should be called whenever the chunk is modified so the next lookup creates an up-to-date wrapper. */
+	public void invalidate(ChunkAccess chunk)
+	{
+		WeakReference<ChunkWrapper> wrapperRef;
+		synchronized (this.wrapperByChunk)
+		{
+			wrapperRef = this.wrapperByChunk.remove(chunk);
+		}
+		
+		// copies handed out before the invalidation are no longer valid, 
+		// but if they're still used they shouldn't keep returning stale data
+		ChunkWrapper wrapper = (wrapperRef != null) ? wrapperRef.get() : null;
+		if (wrapper != null)
+		{
+			wrapper.clearCachedChunkData();
+		}
+	}
+	
+	/** Does nothing if the level wrapper doesn't have a cache. */
+	public static void invalidate(ILevelWrapper levelWrapper, ChunkAccess chunk)
+	{
+		if (levelWrapper instanceof ServerLevelWrapper)
+		{
+			((ServerLevelWrapper) levelWrapper).getChunkWrapperCache().invalidate(chunk);
+		}
+		else if (levelWrapper instanceof ClientLevelWrapper)
+		{
+			((ClientLevelWrapper) levelWrapper).getChunkWrapperCache().invalidate(chunk);
+		}
+	}
+	
+	/** 
+	 * Only does lookups, no wrappers are created. 
+	 * @return true if the chunk is still loaded in the given level and its canonical wrapper hasn't been invalidated 
+	 */
+	public static boolean isStillCurrent(ILevelWrapper levelWrapper, ChunkAccess chunk, ChunkWrapper canonicalWrapper)
+	{
+		DhChunkPos pos = new DhChunkPos(chunk.getPos().x, chunk.getPos().z);
+		if (levelWrapper instanceof ServerLevelWrapper)
+		{
+			ServerLevelWrapper serverLevelWrapper = (ServerLevelWrapper) levelWrapper;
+			return serverLevelWrapper.tryGetMcChunk(pos) == chunk
+					&& serverLevelWrapper.getChunkWrapperCache().isCanonicalWrapper(chunk, canonicalWrapper);
+		}
+		else if (levelWrapper instanceof ClientLevelWrapper)
+		{
+			ClientLevelWrapper clientLevelWrapper = (ClientLevelWrapper) levelWrapper;
+			return clientLevelWrapper.tryGetMcChunk(pos) == chunk
+					&& clientLevelWrapper.getChunkWrapperCache().isCanonicalWrapper(chunk, canonicalWrapper);
+		}
+		
+		return false;
+	}
+	
+	public void clear()
+	{
+		synchronized (this.wrapperByChunk)
+		{
+			this.wrapperByChunk.clear();
+		}
+	}
+	
+	
+	
+	//=======//
+	// debug //
+	//=======//
+	
+	public static String getDebugString()
+	{
+		long hits = HIT_COUNT.get();
+		long lookups = hits + MISS_COUNT.get();
+		return "Chunk wrapper cache: ["+hits+"] hits, ["+MISS_COUNT.get()+"] misses"
+				+ ((lookups == 0) ? "" : String.format(" (%.1f%% hit rate)", hits * 100.0 / lookups));
+	}
+	
+}
@@ -0,0 +1,570 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.chunk;
+
+import com.seibel.distanthorizons.common.wrappers.block.BlockStateWrapper;
+import com.seibel.distanthorizons.common.wrappers.misc.MutableBlockPosWrapper;
+import com.seibel.distanthorizons.core.pos.DhChunkPos;
+import com.seibel.distanthorizons.core.pos.blockPos.DhBlockPos;
+import com.seibel.distanthorizons.core.util.LodUtil;
+import com.seibel.distanthorizons.core.wrapperInterfaces.block.IBlockStateWrapper;
+import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.ChunkLightStorage;
+import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.IChunkWrapper;
+import com.seibel.distanthorizons.core.wrapperInterfaces.misc.IMutableBlockPosWrapper;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.IBiomeWrapper;
+import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+
+#if MC_VER >= MC_1_18_2
+import net.minecraft.util.BitStorage;
+import net.minecraft.world.level.chunk.GlobalPalette;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PalettedContainer;
+#endif
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A detached, compact copy of a {@link ChunkWrapper}'s data
+ * that doesn't reference any MC chunk objects. <br>
+ * This allows chunks to wait in DH's update queues without keeping
+ * the whole MC chunk alive, and allows worker threads to read the
+ * chunk without racing MC's threads. <br><br>
+ *
+ * Block states are stored as each section's palette converted to {@link IBlockStateWrapper}s,
+ * plus a copy of MC's packed palette indices. <br>
+ * A non-uniform section costs bitsPerEntry * 512 bytes of indices (2 KB for the common 4 bit palettes),
+ * sections containing a single block state only store their palette.
+ * Before MC 1.18.2 the palettes can't be accessed, so one byte
+ * (or short for sections with more than 256 states) is stored per block, 4 KB per section. <br><br>
+ *
+ * Block and biome data are immutable, DH lighting is still stored so
+ * the lighting engine can write its results into the snapshot. <br><br>
+ * 
+ * Each snapshot is given a generation number when it's created,
+ * once a newer snapshot of the same chunk exists the older one is no longer valid.
+ */
+public class CompactChunkSnapshot implements IChunkWrapper
+{
+	private static final ThreadLocal<MutableBlockPosWrapper> MUTABLE_BLOCK_POS_WRAPPER_REF = ThreadLocal.withInitial(() -> new MutableBlockPosWrapper());
+	
+	private static final int BLOCKS_PER_SECTION = 16 * 16 * 16;
+	private static final int BIOMES_PER_SECTION = 4 * 4 * 4;
+	
+	/** 
+	 * Once a level has more tracked chunks than this, generations older than this many snapshots are forgotten. 
+	 * Forgetting a chunk's generation just means its snapshots are treated as valid. 
+	 */
+	private static final int MAX_TRACKED_GENERATIONS = 16_384;
+	
+	private static final AtomicLong NEXT_GENERATION = new AtomicLong(0);
+	/** weak keys so unloaded levels can be garbage collected */
+	private static final Map<ILevelWrapper, ConcurrentHashMap<Long, Long>> LATEST_GENERATION_BY_CHUNK_POS_BY_LEVEL = Collections.synchronizedMap(new WeakHashMap<>());
+	
+	
+	private final DhChunkPos chunkPos;
+	private final ILevelWrapper wrappedLevel;
+	private final long generation;
+	
+	private final int minBuildHeight;
+	private final int maxBuildHeight;
+	private final int minNonEmptyHeight;
+	private final int maxNonEmptyHeight;
+	
+	/** 
+	 * each section's palette, a single entry means the whole section is that block. <br>
+	 * Null if the section uses MC's global palette, in which case the indices are block state IDs.
+	 */
+	private final IBlockStateWrapper[][] blockPaletteBySectionIndex;
+	/** null for uniform sections, otherwise a BitStorage after MC 1.18.2 or either a byte[] or short[] before */
+	private final Object[] blockIndicesBySectionIndex;
+	/** a single entry means the whole section is that biome, otherwise indexed via {@link CompactChunkSnapshot#getBiomeIndex(int, int, int)} */
+	private final IBiomeWrapper[][] biomesBySectionIndex;
+	
+	/** indexed via {@link CompactChunkSnapshot#getHeightMapIndex(int, int)} */
+	private final short[] solidHeightMap;
+	/** indexed via {@link CompactChunkSnapshot#getHeightMapIndex(int, int)} */
+	private final short[] lightBlockingHeightMap;
+	
+	/** packed via {@link BlockPos#asLong(int, int, int)} */
+	private final long[] packedBlockLightPositions;
+	private volatile ArrayList<DhBlockPos> blockLightPosList = null;
+	
+	private boolean isDhBlockLightCorrect;
+	private boolean isDhSkyLightCorrect;
+	
+	private ChunkLightStorage blockLightStorage;
+	private ChunkLightStorage skyLightStorage;
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	/**
+	 * Copies everything DH needs from the given wrapper in a single pass. <br>
+	 * The wrapper's chunk shouldn't be modified while this runs.
+	 */
+	public static CompactChunkSnapshot create(ChunkWrapper wrapper, ILevelWrapper wrappedLevel) { return new CompactChunkSnapshot(wrapper, wrappedLevel, true); }
+	#if MC_VER >= MC_1_18_2
+	/**
+	 * Takes over the given snapshot's already copied block data instead of copying it again,
+	 * so the chunk's blocks are only copied once (on the thread that owns the chunk). <br>
+	 * The given snapshot shouldn't be used afterward.
+	 */
+	public static CompactChunkSnapshot create(ChunkSnapshot snapshot, ILevelWrapper wrappedLevel) 
+	{ return new CompactChunkSnapshot(new ChunkWrapper(snapshot.createChunk(), wrappedLevel), wrappedLevel, false); }
+	#endif
+	/** @param copyBlockIndices false if the wrapper's chunk is a private copy that won't be modified */
+	private CompactChunkSnapshot(ChunkWrapper wrapper, ILevelWrapper wrappedLevel, boolean copyBlockIndices)
+	{
+		this.chunkPos = wrapper.getChunkPos();
+		this.wrappedLevel = wrappedLevel;
+		
+		this.minBuildHeight = wrapper.getInclusiveMinBuildHeight();
+		this.maxBuildHeight = wrapper.getExclusiveMaxBuildHeight();
+		this.minNonEmptyHeight = wrapper.getMinNonEmptyHeight();
+		this.maxNonEmptyHeight = wrapper.getMaxNonEmptyHeight();
+		
+		
+		// blocks and biomes
+		ChunkAccess chunk = wrapper.getChunk();
+		LevelChunkSection[] sections = chunk.getSections();
+		this.blockPaletteBySectionIndex = new IBlockStateWrapper[sections.length][];
+		this.blockIndicesBySectionIndex = new Object[sections.length];
+		this.biomesBySectionIndex = new IBiomeWrapper[sections.length][];
+		for (int i = 0; i < sections.length; i++)
+		{
+			this.copySectionBlocks(i, sections[i], copyBlockIndices);
+			this.biomesBySectionIndex[i] = copySectionBiomes(wrapper, this.minBuildHeight + (i * 16));
+		}
+		
+		
+		// heightmaps
+		this.solidHeightMap = new short[LodUtil.CHUNK_WIDTH * LodUtil.CHUNK_WIDTH];
+		this.lightBlockingHeightMap = new short[LodUtil.CHUNK_WIDTH * LodUtil.CHUNK_WIDTH];
+		for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+		{
+			for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+			{
+				this.solidHeightMap[getHeightMapIndex(relX, relZ)] = (short) wrapper.getSolidHeightMapValue(relX, relZ);
+				this.lightBlockingHeightMap[getHeightMapIndex(relX, relZ)] = (short) wrapper.getLightBlockingHeightMapValue(relX, relZ);
+			}
+		}
+		
+		
+		// lighting
+		this.packedBlockLightPositions = wrapper.getPackedWorldBlockLightPositions();
+		
+		this.isDhBlockLightCorrect = wrapper.isDhBlockLightingCorrect();
+		this.isDhSkyLightCorrect = wrapper.isDhSkyLightCorrect();
+		if (this.isDhBlockLightCorrect || this.isDhSkyLightCorrect)
+		{
+			this.copyLighting(wrapper);
+		}
+		
+		
+		// generation is assigned last so the newest generation is always the most recently copied data
+		this.generation = NEXT_GENERATION.incrementAndGet();
+		ConcurrentHashMap<Long, Long> latestGenerationByChunkPos = getLatestGenerationByChunkPos(wrappedLevel);
+		latestGenerationByChunkPos.merge(getChunkPosKey(this.chunkPos), this.generation, Math::max);
+		if (latestGenerationByChunkPos.size() > MAX_TRACKED_GENERATIONS)
+		{
+			long oldestGenerationToKeep = this.generation - MAX_TRACKED_GENERATIONS;
+			latestGenerationByChunkPos.values().removeIf((generation) -> generation < oldestGenerationToKeep);
+		}
+	}
+	private static ConcurrentHashMap<Long, Long> getLatestGenerationByChunkPos(ILevelWrapper wrappedLevel)
+	{
+		synchronized (LATEST_GENERATION_BY_CHUNK_POS_BY_LEVEL)
+		{
+			return LATEST_GENERATION_BY_CHUNK_POS_BY_LEVEL.computeIfAbsent(wrappedLevel, (level) -> new ConcurrentHashMap<>());
+		}
+	}
+	private static long getChunkPosKey(DhChunkPos chunkPos) { return ((long) chunkPos.getX() << 32) | (chunkPos.getZ() & 0xFFFFFFFFL); }
+	private void copySectionBlocks(int sectionIndex, LevelChunkSection section, boolean copyBlockIndices)
+	{
+		if (section == null || isSectionEmpty(section))
+		{
+			this.blockPaletteBySectionIndex[sectionIndex] = new IBlockStateWrapper[] { BlockStateWrapper.AIR };
+			return;
+		}
+		
+		#if MC_VER < MC_1_18_2
+		this.copySectionBlocksIndividually(sectionIndex, section);
+		#else
+		PalettedContainer.Data<BlockState> data = section.getStates().data;
+		Palette<BlockState> palette = data.palette();
+		if (palette instanceof GlobalPalette)
+		{
+			// MC's global palette contains every block state, so it's too large to convert up front
+			this.blockPaletteBySectionIndex[sectionIndex] = null;
+		}
+		else
+		{
+			IBlockStateWrapper[] wrappers = new IBlockStateWrapper[palette.getSize()];
+			for (int paletteId = 0; paletteId < wrappers.length; paletteId++)
+			{
+				wrappers[paletteId] = BlockStateWrapper.fromBlockState(palette.valueFor(paletteId), this.wrappedLevel);
+			}
+			this.blockPaletteBySectionIndex[sectionIndex] = wrappers;
+			
+			if (wrappers.length == 1)
+			{
+				// uniform section
+				return;
+			}
+		}
+		
+		// live chunks may be modified after this snapshot is created, so their indices are copied
+		this.blockIndicesBySectionIndex[sectionIndex] = copyBlockIndices ? data.storage().copy() : data.storage();
+		#endif
+	}
+	#if MC_VER < MC_1_18_2
+	/** Fallback for MC versions where the section palettes can't be accessed directly. */
+	private void copySectionBlocksIndividually(int sectionIndex, LevelChunkSection section)
+	{
+		IdentityHashMap<BlockState, Integer> paletteIndexByState = new IdentityHashMap<>();
+		ArrayList<IBlockStateWrapper> palette = new ArrayList<>();
+		short[] indices = new short[BLOCKS_PER_SECTION];
+		
+		BlockState lastState = null;
+		int lastPaletteIndex = 0;
+		for (int sectionRelY = 0; sectionRelY < 16; sectionRelY++)
+		{
+			for (int relZ = 0; relZ < 16; relZ++)
+			{
+				for (int relX = 0; relX < 16; relX++)
+				{
+					BlockState state = section.getBlockState(relX, sectionRelY, relZ);
+					
+					// neighboring blocks are usually the same, so the map is rarely needed
+					if (state != lastState)
+					{
+						lastState = state;
+						Integer paletteIndex = paletteIndexByState.get(state);
+						if (paletteIndex == null)
+						{
+							paletteIndex = palette.size();
+							paletteIndexByState.put(state, paletteIndex);
+							palette.add(BlockStateWrapper.fromBlockState(state, this.wrappedLevel));
+						}
+						lastPaletteIndex = paletteIndex;
+					}
+					
+					indices[getBlockIndex(relX, sectionRelY, relZ)] = (short) lastPaletteIndex;
+				}
+			}
+		}
+		
+		this.blockPaletteBySectionIndex[sectionIndex] = palette.toArray(new IBlockStateWrapper[0]);
+		if (palette.size() == 1)
+		{
+			// uniform section
+			return;
+		}
+		else if (palette.size() <= 256)
+		{
+			byte[] byteIndices = new byte[BLOCKS_PER_SECTION];
+			for (int i = 0; i < BLOCKS_PER_SECTION; i++)
+			{
+				byteIndices[i] = (byte) indices[i];
+			}
+			this.blockIndicesBySectionIndex[sectionIndex] = byteIndices;
+		}
+		else
+		{
+			this.blockIndicesBySectionIndex[sectionIndex] = indices;
+		}
+	}
+	#endif
+	private static boolean isSectionEmpty(LevelChunkSection section)
+	{
+		#if MC_VER == MC_1_16_5
+		return section.isEmpty();
+		#elif MC_VER == MC_1_17_1
+		return section.isEmpty();
+		#else
+		return section.hasOnlyAir();
+		#endif
+	}
+	private static IBiomeWrapper[] copySectionBiomes(ChunkWrapper wrapper, int sectionMinY)
+	{
+		IBiomeWrapper[] biomes = new IBiomeWrapper[BIOMES_PER_SECTION];
+		boolean uniform = true;
+		for (int quartX = 0; quartX < 4; quartX++)
+		{
+			for (int quartY = 0; quartY < 4; quartY++)
+			{
+				for (int quartZ = 0; quartZ < 4; quartZ++)
+				{
+					IBiomeWrapper biome = wrapper.getBiome(quartX * 4, sectionMinY + (quartY * 4), quartZ * 4);
+					biomes[getBiomeIndex(quartX, quartY, quartZ)] = biome;
+					uniform &= (biome == biomes[0]);
+				}
+			}
+		}
+		
+		return uniform ? new IBiomeWrapper[] { biomes[0] } : biomes;
+	}
+	private void copyLighting(ChunkWrapper wrapper)
+	{
+		for (int y = this.minBuildHeight; y < this.maxBuildHeight; y++)
+		{
+			for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+			{
+				for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+				{
+					if (this.isDhBlockLightCorrect)
+					{
+						this.getBlockLightStorage().set(relX, y, relZ, wrapper.getDhBlockLight(relX, y, relZ));
+					}
+					if (this.isDhSkyLightCorrect)
+					{
+						this.getSkyLightStorage().set(relX, y, relZ, wrapper.getDhSkyLight(relX, y, relZ));
+					}
+				}
+			}
+		}
+	}
+	
+	
+	
+	//=========//
+	// getters //
+	//=========//
+	
+	@Override
+	public int getHeight() { return this.maxBuildHeight - this.minBuildHeight; }
+	@Override
+	public int getInclusiveMinBuildHeight() { return this.minBuildHeight; }
+	@Override
+	public int getExclusiveMaxBuildHeight() { return this.maxBuildHeight; }
+	
+	@Override
+	public int getMinNonEmptyHeight() { return this.minNonEmptyHeight; }
+	@Override
+	public int getMaxNonEmptyHeight() { return this.maxNonEmptyHeight; }
+	
+	@Override
+	public int getSolidHeightMapValue(int xRel, int zRel)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(xRel, zRel);
+		return this.solidHeightMap[getHeightMapIndex(xRel, zRel)];
+	}
+	@Override
+	public int getLightBlockingHeightMapValue(int xRel, int zRel)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(xRel, zRel);
+		return this.lightBlockingHeightMap[getHeightMapIndex(xRel, zRel)];
+	}
+	private static int getHeightMapIndex(int relX, int relZ) { return (relX * LodUtil.CHUNK_WIDTH) + relZ; }
+	
+	@Override
+	public IBiomeWrapper getBiome(int relX, int relY, int relZ)
+	{
+		// clamp to the chunk's height, the same as MC does
+		int y = Math.max(this.minBuildHeight, Math.min(relY, this.maxBuildHeight - 1));
+		
+		IBiomeWrapper[] biomes = this.biomesBySectionIndex[(y - this.minBuildHeight) >> 4];
+		if (biomes.length == 1)
+		{
+			return biomes[0];
+		}
+		return biomes[getBiomeIndex((relX >> 2) & 3, ((y - this.minBuildHeight) >> 2) & 3, (relZ >> 2) & 3)];
+	}
+	private static int getBiomeIndex(int quartX, int quartY, int quartZ) { return (((quartY << 2) | quartZ) << 2) | quartX; }
+	
+	@Override
+	public IBlockStateWrapper getBlockState(int relX, int relY, int relZ)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(relX, relY, relZ);
+		
+		if (relY < this.minBuildHeight || relY >= this.maxBuildHeight)
+		{
+			return BlockStateWrapper.AIR;
+		}
+		
+		int sectionIndex = (relY - this.minBuildHeight) >> 4;
+		IBlockStateWrapper[] palette = this.blockPaletteBySectionIndex[sectionIndex];
+		Object indices = this.blockIndicesBySectionIndex[sectionIndex];
+		if (indices == null)
+		{
+			// uniform section
+			return palette[0];
+		}
+		
+		int blockIndex = getBlockIndex(relX, (relY - this.minBuildHeight) & 15, relZ);
+		#if MC_VER < MC_1_18_2
+		if (indices instanceof byte[])
+		{
+			return palette[((byte[]) indices)[blockIndex] & 0xFF];
+		}
+		else
+		{
+			return palette[((short[]) indices)[blockIndex]];
+		}
+		#else
+		int paletteId = ((BitStorage) indices).get(blockIndex);
+		return (palette != null)
+				? palette[paletteId]
+				// global palette IDs are block state registry IDs
+				: BlockStateWrapper.fromBlockStateId(paletteId, this.wrappedLevel);
+		#endif
+	}
+	/** matches MC's section storage order */
+	private static int getBlockIndex(int relX, int sectionRelY, int relZ) { return (((sectionRelY << 4) | relZ) << 4) | relX; }
+	
+	@Override
+	public IBlockStateWrapper getBlockState(int relX, int relY, int relZ, IMutableBlockPosWrapper mcBlockPos, IBlockStateWrapper guess)
+	{ return this.getBlockState(relX, relY, relZ); }
+	
+	@Override
+	public IMutableBlockPosWrapper getMutableBlockPosWrapper() { return MUTABLE_BLOCK_POS_WRAPPER_REF.get(); }
+	
+	@Override
+	public DhChunkPos getChunkPos() { return this.chunkPos; }
+	
+	@Override
+	public int getMaxBlockX() { return (this.chunkPos.getX() * LodUtil.CHUNK_WIDTH) + (LodUtil.CHUNK_WIDTH - 1); }
+	@Override
+	public int getMaxBlockZ() { return (this.chunkPos.getZ() * LodUtil.CHUNK_WIDTH) + (LodUtil.CHUNK_WIDTH - 1); }
+	@Override
+	public int getMinBlockX() { return this.chunkPos.getX() * LodUtil.CHUNK_WIDTH; }
+	@Override
+	public int getMinBlockZ() { return this.chunkPos.getZ() * LodUtil.CHUNK_WIDTH; }
+	
+	
+	
+	//==========//
+	// lighting //
+	//==========//
+	
+	@Override
+	public void setIsDhSkyLightCorrect(boolean isDhLightCorrect) { this.isDhSkyLightCorrect = isDhLightCorrect; }
+	@Override
+	public void setIsDhBlockLightCorrect(boolean isDhLightCorrect) { this.isDhBlockLightCorrect = isDhLightCorrect; }
+	
+	@Override
+	public boolean isDhBlockLightingCorrect() { return this.isDhBlockLightCorrect; }
+	@Override
+	public boolean isDhSkyLightCorrect() { return this.isDhSkyLightCorrect; }
+	
+	
+	@Override
+	public int getDhBlockLight(int relX, int y, int relZ)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(relX, y, relZ);
+		return this.getBlockLightStorage().get(relX, y, relZ);
+	}
+	@Override
+	public void setDhBlockLight(int relX, int y, int relZ, int lightValue)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(relX, y, relZ);
+		this.getBlockLightStorage().set(relX, y, relZ, lightValue);
+	}
+	@Override
+	public void clearDhBlockLighting() { this.getBlockLightStorage().clear(); }
+	
+	private ChunkLightStorage getBlockLightStorage()
+	{
+		if (this.blockLightStorage == null)
+		{
+			this.blockLightStorage = ChunkLightStorage.createBlockLightStorage(this);
+		}
+		return this.blockLightStorage;
+	}
+	
+	
+	@Override
+	public int getDhSkyLight(int relX, int y, int relZ)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(relX, y, relZ);
+		return this.getSkyLightStorage().get(relX, y, relZ);
+	}
+	@Override
+	public void setDhSkyLight(int relX, int y, int relZ, int lightValue)
+	{
+		this.throwIndexOutOfBoundsIfRelativePosOutsideChunkBounds(relX, y, relZ);
+		this.getSkyLightStorage().set(relX, y, relZ, lightValue);
+	}
+	@Override
+	public void clearDhSkyLighting() { this.getSkyLightStorage().clear(); }
+	
+	private ChunkLightStorage getSkyLightStorage()
+	{
+		if (this.skyLightStorage == null)
+		{
+			this.skyLightStorage = ChunkLightStorage.createSkyLightStorage(this);
+		}
+		return this.skyLightStorage;
+	}
+	
+	
+	@Override
+	public ArrayList<DhBlockPos> getWorldBlockLightPosList()
+	{
+		ArrayList<DhBlockPos> blockLightPosList = this.blockLightPosList;
+		if (blockLightPosList == null)
+		{
+			blockLightPosList = new ArrayList<>(this.packedBlockLightPositions.length);
+			for (long packedPos : this.packedBlockLightPositions)
+			{
+				blockLightPosList.add(new DhBlockPos(BlockPos.getX(packedPos), BlockPos.getY(packedPos), BlockPos.getZ(packedPos)));
+			}
+			this.blockLightPosList = blockLightPosList;
+		}
+		return blockLightPosList;
+	}
+	
+	
+	
+	//===============//
+	// other methods //
+	//===============//
+	
+	/** @return false once a newer snapshot of the same chunk has been created */
+	@Override
+	public boolean isStillValid() 
+	{
+		Long latestGeneration = getLatestGenerationByChunkPos(this.wrappedLevel).get(getChunkPosKey(this.chunkPos));
+		return latestGeneration == null || latestGeneration == this.generation;
+	}
+	
+	
+	
+	//================//
+	// base overrides //
+	//================//
+	
+	@Override
+	public String toString() { return this.getClass().getSimpleName() + this.chunkPos; }
+	
+}
@@ -2,11 +2,14 @@ package com.seibel.distanthorizons.common.wrappers.world;
 
 import com.seibel.distanthorizons.api.enums.worldGeneration.EDhApiLevelType;
 import com.seibel.distanthorizons.api.interfaces.render.IDhApiCustomRenderRegister;
+import com.seibel.distanthorizons.common.util.BlockChangeDebouncer;
 import com.seibel.distanthorizons.common.wrappers.McObjectConverter;
 import com.seibel.distanthorizons.common.wrappers.block.BiomeWrapper;
+import com.seibel.distanthorizons.common.wrappers.block.BlockStateDictionary;
+import com.seibel.distanthorizons.common.wrappers.block.WrapperPreWarmer;
 import com.seibel.distanthorizons.common.wrappers.block.BlockStateWrapper;
 import com.seibel.distanthorizons.common.wrappers.block.ClientBlockStateColorCache;
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapperCache;
 import com.seibel.distanthorizons.core.dependencyInjection.SingletonInjector;
 import com.seibel.distanthorizons.core.level.*;
 import com.seibel.distanthorizons.core.level.IServerKeyedClientLevel;
@@ -56,6 +59,7 @@ public class ClientLevelWrapper implements IClientLevelWrapper
 	
 	private final ClientLevel level;
 	private final ConcurrentHashMap<BlockState, ClientBlockStateColorCache> blockCache = new ConcurrentHashMap<>();
+	private final ChunkWrapperCache chunkWrapperCache = new ChunkWrapperCache(this);
 	
 	private BlockStateWrapper dirtBlockWrapper;
 	private BiomeWrapper plainsBiomeWrapper;
@@ -167,7 +171,12 @@ public class ClientLevelWrapper implements IClientLevelWrapper
 	}
 	
 	@Override 
-	public void clearBlockColorCache() { this.blockCache.clear(); }
+	public void clearBlockColorCache() 
+	{
+		ClientBlockStateColorCache.clearBakedColors();
+		this.blockCache.clear();
+		ClientBlockStateColorCache.startBakeAsync();
+	}
 	
 	@Override
 	public IBiomeWrapper getPlainsBiomeWrapper()
@@ -231,20 +240,28 @@ public class ClientLevelWrapper implements IClientLevelWrapper
 	@Override
 	public IChunkWrapper tryGetChunk(DhChunkPos pos)
 	{
-		if (!this.level.hasChunk(pos.getX(), pos.getZ()))
+		ChunkAccess chunk = this.tryGetMcChunk(pos);
+		if (chunk == null)
 		{
 			return null;
 		}
 		
-		ChunkAccess chunk = this.level.getChunk(pos.getX(), pos.getZ(), ChunkStatus.EMPTY, false);
-		if (chunk == null)
+		return this.chunkWrapperCache.getOrCreate(chunk);
+	}
+	/** @return null if the chunk isn't loaded */
+	@Nullable
+	public ChunkAccess tryGetMcChunk(DhChunkPos pos)
+	{
+		if (!this.level.hasChunk(pos.getX(), pos.getZ()))
 		{
 			return null;
 		}
 		
-		return new ChunkWrapper(chunk, this);
+		return this.level.getChunk(pos.getX(), pos.getZ(), ChunkStatus.EMPTY, false);
 	}
 	
+	public ChunkWrapperCache getChunkWrapperCache() { return this.chunkWrapperCache; }
+	
 	@Override
 	public boolean hasChunkLoaded(int chunkX, int chunkZ)
 	{
@@ -265,7 +282,11 @@ public class ClientLevelWrapper implements IClientLevelWrapper
 	@Override
 	public void onUnload() 
 	{ 
+		BlockStateDictionary.onLevelUnload(this);
+		
 		LEVEL_WRAPPER_BY_CLIENT_LEVEL.remove(this.level);
+		BlockChangeDebouncer.INSTANCE.onLevelUnload(this.level);
+		this.chunkWrapperCache.clear();
 		this.parentDhLevel = null;
 	}
 	
@@ -288,7 +309,20 @@ public class ClientLevelWrapper implements IClientLevelWrapper
 	//===================//
 	
 	@Override
-	public void setParentLevel(IDhLevel parentLevel) { this.parentDhLevel = parentLevel; }
+	public void setParentLevel(IDhLevel parentLevel) 
+	{
+		this.parentDhLevel = parentLevel;
+		
+		// the save folder is only known once the parent level is set
+		if (parentLevel != null)
+		{
+			// the save folder's parent is shared by every dimension on this server
+			File saveFolder = this.getDhSaveFolder();
+			BlockStateDictionary.onLevelLoad(this, (saveFolder != null) ? saveFolder.getParentFile() : null);
+			// the pre-warm waits for the bake so they don't compete for the same threads
+			WrapperPreWarmer.startAsync(this, ClientBlockStateColorCache.startBakeAsync());
+		}
+	}
 	
 	@Override 
 	public IDhApiCustomRenderRegister getRenderRegister()
@@ -26,8 +26,13 @@ import com.seibel.distanthorizons.api.enums.worldGeneration.EDhApiLevelType;
 import com.seibel.distanthorizons.api.interfaces.render.IDhApiCustomRenderRegister;
 import com.seibel.distanthorizons.common.wrappers.McObjectConverter;
 import com.seibel.distanthorizons.common.wrappers.block.BiomeWrapper;
+import com.seibel.distanthorizons.common.wrappers.block.BlockStateDictionary;
+import com.seibel.distanthorizons.common.wrappers.block.WrapperPreWarmer;
 import com.seibel.distanthorizons.common.wrappers.block.BlockStateWrapper;
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkSaveCoalescer;
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapperCache;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.RegionChunkExistenceCache;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.RegionFileImporter;
 import com.seibel.distanthorizons.core.level.IDhLevel;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
 import com.seibel.distanthorizons.core.pos.blockPos.DhBlockPos;
@@ -40,6 +45,7 @@ import com.seibel.distanthorizons.core.wrapperInterfaces.world.IServerLevelWrapp
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkSource;
+import net.minecraft.world.level.storage.LevelResource;
 
 #if MC_VER <= MC_1_20_4
 import net.minecraft.world.level.chunk.ChunkStatus;
@@ -53,6 +59,7 @@ import java.nio.file.Path;
 #endif
 
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 public class ServerLevelWrapper implements IServerLevelWrapper
 {
@@ -60,6 +67,9 @@ public class ServerLevelWrapper implements IServerLevelWrapper
 	private static final ConcurrentHashMap<ServerLevel, ServerLevelWrapper> LEVEL_WRAPPER_BY_SERVER_LEVEL = new ConcurrentHashMap<>();
 	
 	private final ServerLevel level;
+	private final RegionChunkExistenceCache chunkExistenceCache = new RegionChunkExistenceCache(this);
+	private final ChunkSaveCoalescer chunkSaveCoalescer = new ChunkSaveCoalescer(this);
+	private final ChunkWrapperCache chunkWrapperCache = new ChunkWrapperCache(this);
 	@Deprecated // TODO circular references are bad
 	private IDhLevel parentDhLevel;
 	
@@ -71,9 +81,21 @@ public class ServerLevelWrapper implements IServerLevelWrapper
 	
 	public static ServerLevelWrapper getWrapper(ServerLevel level) 
 	{ return LEVEL_WRAPPER_BY_SERVER_LEVEL.computeIfAbsent(level, ServerLevelWrapper::new); }
+	/** @return null if the level hasn't been wrapped or was unloaded */
+	@Nullable
+	public static ServerLevelWrapper tryGetWrapper(ServerLevel level) { return LEVEL_WRAPPER_BY_SERVER_LEVEL.get(level); }
 	
 	public ServerLevelWrapper(ServerLevel level) { this.level = level; }
 	
+	/** Should be called once per server tick. */
+	public static void onServerTick()
+	{
+		for (ServerLevelWrapper levelWrapper : LEVEL_WRAPPER_BY_SERVER_LEVEL.values())
+		{
+			levelWrapper.chunkSaveCoalescer.tick();
+		}
+	}
+	
 	
 	
 	//=========//
@@ -107,6 +129,12 @@ public class ServerLevelWrapper implements IServerLevelWrapper
 	
 	public ServerLevel getLevel() { return this.level; }
 	
+	public RegionChunkExistenceCache getChunkExistenceCache() { return this.chunkExistenceCache; }
+	
+	public ChunkSaveCoalescer getChunkSaveCoalescer() { return this.chunkSaveCoalescer; }
+	
+	public ChunkWrapperCache getChunkWrapperCache() { return this.chunkWrapperCache; }
+	
 	@Override
 	public boolean hasCeiling() { return this.level.dimensionType().hasCeiling(); }
 	
@@ -131,18 +159,24 @@ public class ServerLevelWrapper implements IServerLevelWrapper
 	@Override
 	public IChunkWrapper tryGetChunk(DhChunkPos pos)
 	{
-		if (!this.level.hasChunk(pos.getX(), pos.getZ()))
+		ChunkAccess chunk = this.tryGetMcChunk(pos);
+		if (chunk == null)
 		{
 			return null;
 		}
 		
-		ChunkAccess chunk = this.level.getChunk(pos.getX(), pos.getZ(), ChunkStatus.FULL, false);
-		if (chunk == null)
+		return this.chunkWrapperCache.getOrCreate(chunk);
+	}
+	/** @return null if the chunk isn't loaded */
+	@Nullable
+	public ChunkAccess tryGetMcChunk(DhChunkPos pos)
+	{
+		if (!this.level.hasChunk(pos.getX(), pos.getZ()))
 		{
 			return null;
 		}
 		
-		return new ChunkWrapper(chunk, this);
+		return this.level.getChunk(pos.getX(), pos.getZ(), ChunkStatus.FULL, false);
 	}
 	
 	@Override
@@ -169,11 +203,31 @@ public class ServerLevelWrapper implements IServerLevelWrapper
 	public ServerLevel getWrappedMcObject() { return this.level; }
 	
 	@Override
-	public void onUnload() { LEVEL_WRAPPER_BY_SERVER_LEVEL.remove(this.level); }
+	public void onUnload() 
+	{
+		RegionFileImporter.onLevelUnload(this.level);
+		this.chunkSaveCoalescer.flushAll();
+		BlockStateDictionary.onLevelUnload(this);
+		this.chunkWrapperCache.clear();
+		this.chunkExistenceCache.close();
+		LEVEL_WRAPPER_BY_SERVER_LEVEL.remove(this.level); 
+	}
 	
 	
 	@Override
-	public void setParentLevel(IDhLevel parentLevel) { this.parentDhLevel = parentLevel; }
+	public void setParentLevel(IDhLevel parentLevel) 
+	{
+		this.parentDhLevel = parentLevel;
+		
+		// the save folder is only known once the parent level is set
+		if (parentLevel != null)
+		{
+			// every dimension shares the world's dictionary
+			File worldDataFolder = new File(this.level.getServer().getWorldPath(LevelResource.ROOT).toFile(), "data");
+			BlockStateDictionary.onLevelLoad(this, worldDataFolder);
+			WrapperPreWarmer.startAsync(this);
+		}
+	}
 	
 	@Override
 	public IDhApiCustomRenderRegister getRenderRegister()
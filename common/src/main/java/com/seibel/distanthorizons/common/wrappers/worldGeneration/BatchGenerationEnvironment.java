@@ -555,6 +555,15 @@ public final class BatchGenerationEnvironment extends AbstractBatchGenerationEnv
 			return CompletableFuture.completedFuture(generatedChunkByDhPos.get(dhChunkPos));
 		}
 		
+		// most chunks around unexplored terrain were never saved,
+		// if the region file says so we can skip reading the chunk entirely
+		if (!ServerLevelWrapper.getWrapper(this.params.level).getChunkExistenceCache().mayChunkExist(chunkPos))
+		{
+			ChunkAccess newChunk = CreateEmptyChunk(this.params.level, chunkPos);
+			generatedChunkByDhPos.put(dhChunkPos, newChunk);
+			return CompletableFuture.completedFuture(newChunk);
+		}
+		
 		return this.getChunkNbtDataAsync(chunkPos)
 			.thenApply((chunkData) -> 
 			{
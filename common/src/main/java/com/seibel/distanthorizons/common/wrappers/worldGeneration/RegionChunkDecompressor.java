@@ -0,0 +1,303 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.worldGeneration;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses region file chunk payloads using a thread-local
+ * {@link Inflater} and reusable byte buffers. <br>
+ * MC's {@link net.minecraft.world.level.chunk.storage.RegionFile#getChunkDataInputStream}
+ * creates a new native {@link Inflater} and stream chain for every chunk,
+ * which adds up when reading thousands of chunks. <br><br>
+ *
+ * Instances aren't thread safe, use {@link RegionChunkDecompressor#get()}.
+ *
+ * @see RegionFileImporter
+ */
+public class RegionChunkDecompressor
+{
+	public static final byte COMPRESSION_GZIP = 1;
+	public static final byte COMPRESSION_ZLIB = 2;
+	public static final byte COMPRESSION_NONE = 3;
+	/** only written by MC 1.20.5 and newer */
+	public static final byte COMPRESSION_LZ4 = 4;
+	
+	private static final int INITIAL_BUFFER_SIZE_IN_BYTES = 64 * 1024;
+	/** 
+	 * buffers bigger than this are dropped after use 
+	 * so a single huge chunk doesn't pin memory on every thread 
+	 */
+	private static final int MAX_RETAINED_BUFFER_SIZE_IN_BYTES = 4 * 1024 * 1024;
+	
+	// gzip header flags
+	private static final int GZIP_MAGIC = 0x8B1F;
+	private static final int GZIP_FLAG_HEADER_CRC = 2;
+	private static final int GZIP_FLAG_EXTRA = 4;
+	private static final int GZIP_FLAG_NAME = 8;
+	private static final int GZIP_FLAG_COMMENT = 16;
+	
+	private static final ThreadLocal<RegionChunkDecompressor> THREAD_LOCAL_DECOMPRESSOR = ThreadLocal.withInitial(RegionChunkDecompressor::new);
+	
+	
+	/** zlib wrapped deflate */
+	private final Inflater zlibInflater = new Inflater();
+	/** raw deflate, gzip's header and trailer are handled manually */
+	private final Inflater gzipInflater = new Inflater(true);
+	private final CRC32 crc = new CRC32();
+	
+	private byte[] inputBuffer = new byte[INITIAL_BUFFER_SIZE_IN_BYTES];
+	private byte[] outputBuffer = new byte[INITIAL_BUFFER_SIZE_IN_BYTES];
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	/** @return the decompressor for the current thread */
+	public static RegionChunkDecompressor get() { return THREAD_LOCAL_DECOMPRESSOR.get(); }
+	
+	private RegionChunkDecompressor() { }
+	
+	
+	
+	//=========//
+	// buffers //
+	//=========//
+	
+	/** 
+	 * @return a reusable buffer at least the given size, 
+	 *          can be used to hold the compressed data passed into {@link RegionChunkDecompressor#readNbt}.
+	 */
+	public byte[] getInputBuffer(int minSize)
+	{
+		if (this.inputBuffer.length < minSize)
+		{
+			this.inputBuffer = new byte[minSize];
+		}
+		return this.inputBuffer;
+	}
+	
+	private void releaseOversizedBuffers()
+	{
+		if (this.inputBuffer.length > MAX_RETAINED_BUFFER_SIZE_IN_BYTES)
+		{
+			this.inputBuffer = new byte[INITIAL_BUFFER_SIZE_IN_BYTES];
+		}
+		if (this.outputBuffer.length > MAX_RETAINED_BUFFER_SIZE_IN_BYTES)
+		{
+			this.outputBuffer = new byte[INITIAL_BUFFER_SIZE_IN_BYTES];
+		}
+	}
+	
+	
+	
+	//===============//
+	// decompression //
+	//===============//
+	
+	/**
+	 * @return true if {@link RegionChunkDecompressor#readNbt} can handle the given compression type. <br>
+	 *          Other types (IE MC's custom compression or types added by mods) should be read using MC's
+	 *          {@link net.minecraft.world.level.chunk.storage.RegionFile#getChunkDataInputStream} instead.
+	 */
+	public static boolean isSupported(byte compressionType)
+	{
+		switch (compressionType)
+		{
+			case COMPRESSION_GZIP:
+			case COMPRESSION_ZLIB:
+			case COMPRESSION_NONE:
+				return true;
+			#if MC_VER >= MC_1_20_6
+			case COMPRESSION_LZ4:
+				return true;
+			#endif
+			default:
+				return false;
+		}
+	}
+	
+	/**
+	 * @param compressionType the region file's compression byte, without the external stream flag
+	 * @throws IOException if the data is invalid or the compression type isn't supported
+	 */
+	public CompoundTag readNbt(byte compressionType, byte[] data, int offset, int length) throws IOException
+	{
+		try
+		{
+			int decompressedLength;
+			switch (compressionType)
+			{
+				case COMPRESSION_GZIP:
+					decompressedLength = this.inflateGzip(data, offset, length);
+					break;
+				case COMPRESSION_ZLIB:
+					decompressedLength = this.inflate(this.zlibInflater, data, offset, length);
+					break;
+				case COMPRESSION_NONE:
+					try (DataInputStream stream = new DataInputStream(new ByteArrayInputStream(data, offset, length)))
+					{
+						return NbtIo.read(stream);
+					}
+				#if MC_VER >= MC_1_20_6
+				case COMPRESSION_LZ4:
+					decompressedLength = this.readFully(new net.jpountz.lz4.LZ4BlockInputStream(new ByteArrayInputStream(data, offset, length)));
+					break;
+				#endif
+				default:
+					throw new IOException("Unsupported region compression type ["+compressionType+"].");
+			}
+			
+			try (DataInputStream stream = new DataInputStream(new ByteArrayInputStream(this.outputBuffer, 0, decompressedLength)))
+			{
+				return NbtIo.read(stream);
+			}
+		}
+		finally
+		{
+			this.releaseOversizedBuffers();
+		}
+	}
+	
+	/** @return the number of bytes written to {@link RegionChunkDecompressor#outputBuffer} */
+	private int inflate(Inflater inflater, byte[] data, int offset, int length) throws IOException
+	{
+		inflater.reset();
+		inflater.setInput(data, offset, length);
+		
+		int outputLength = 0;
+		try
+		{
+			while (!inflater.finished())
+			{
+				if (outputLength == this.outputBuffer.length)
+				{
+					this.outputBuffer = Arrays.copyOf(this.outputBuffer, this.outputBuffer.length * 2);
+				}
+				
+				int inflatedCount = inflater.inflate(this.outputBuffer, outputLength, this.outputBuffer.length - outputLength);
+				if (inflatedCount == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					throw new IOException("Compressed chunk data ended unexpectedly.");
+				}
+				outputLength += inflatedCount;
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("Invalid compressed chunk data: ["+e.getMessage()+"].", e);
+		}
+		
+		return outputLength;
+	}
+	
+	/** @return the number of bytes written to {@link RegionChunkDecompressor#outputBuffer} */
+	private int inflateGzip(byte[] data, int offset, int length) throws IOException
+	{
+		int end = offset + length;
+		if (length < 18 || ((data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8)) != GZIP_MAGIC)
+		{
+			throw new IOException("Invalid GZIP header.");
+		}
+		
+		// skip the optional header fields
+		int flags = data[offset + 3] & 0xFF;
+		int index = offset + 10;
+		if ((flags & GZIP_FLAG_EXTRA) != 0)
+		{
+			index += 2 + ((data[index] & 0xFF) | ((data[index + 1] & 0xFF) << 8));
+		}
+		if ((flags & GZIP_FLAG_NAME) != 0)
+		{
+			while (index < end && data[index] != 0) { index++; }
+			index++;
+		}
+		if ((flags & GZIP_FLAG_COMMENT) != 0)
+		{
+			while (index < end && data[index] != 0) { index++; }
+			index++;
+		}
+		if ((flags & GZIP_FLAG_HEADER_CRC) != 0)
+		{
+			index += 2;
+		}
+		
+		// the last 8 bytes are the CRC and uncompressed size
+		int trailerStart = end - 8;
+		if (index > trailerStart)
+		{
+			throw new IOException("Invalid GZIP header.");
+		}
+		
+		int outputLength = this.inflate(this.gzipInflater, data, index, trailerStart - index);
+		
+		this.crc.reset();
+		this.crc.update(this.outputBuffer, 0, outputLength);
+		if ((int) this.crc.getValue() != readIntLittleEndian(data, trailerStart))
+		{
+			throw new IOException("GZIP CRC mismatch.");
+		}
+		
+		return outputLength;
+	}
+	private static int readIntLittleEndian(byte[] data, int index)
+	{
+		return (data[index] & 0xFF)
+				| ((data[index + 1] & 0xFF) << 8)
+				| ((data[index + 2] & 0xFF) << 16)
+				| ((data[index + 3] & 0xFF) << 24);
+	}
+	
+	/** @return the number of bytes written to {@link RegionChunkDecompressor#outputBuffer} */
+	private int readFully(InputStream inputStream) throws IOException
+	{
+		try (InputStream stream = inputStream)
+		{
+			int outputLength = 0;
+			while (true)
+			{
+				if (outputLength == this.outputBuffer.length)
+				{
+					this.outputBuffer = Arrays.copyOf(this.outputBuffer, this.outputBuffer.length * 2);
+				}
+				
+				int readCount = stream.read(this.outputBuffer, outputLength, this.outputBuffer.length - outputLength);
+				if (readCount < 0)
+				{
+					return outputLength;
+				}
+				outputLength += readCount;
+			}
+		}
+	}
+	
+}
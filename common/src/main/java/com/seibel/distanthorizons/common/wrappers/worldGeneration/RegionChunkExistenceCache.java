@@ -0,0 +1,275 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.worldGeneration;
+
+import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.mimicObject.RegionFileStorageExternalCache;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks which chunks exist in a level's region files
+ * using one 1024 bit bitmap per region, parsed from each region's location table. <br>
+ * This allows quickly skipping chunks that were never generated
+ * without having to go through MC's chunk loading. <br><br>
+ *
+ * The bitmaps may contain false positives (IE a chunk was deleted by an external tool)
+ * but shouldn't contain false negatives, since chunk saves are recorded
+ * via {@link RegionChunkExistenceCache#markChunkExists(ChunkPos)}
+ * and a region's header is re-read before a chunk is reported missing if the header is more than
+ * {@link RegionChunkExistenceCache#HEADER_MAX_AGE_IN_MS} old. <br>
+ * If a region file is missing or can't be read every chunk in it is reported as potentially existing,
+ * since mods that replace MC's region storage (IE C2ME) may not have written it yet.
+ *
+ * @see ServerLevelWrapper#getChunkExistenceCache()
+ */
+public class RegionChunkExistenceCache
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	private static final int LONGS_PER_BITMAP = RegionFileImporter.CHUNKS_PER_REGION / Long.SIZE;
+	/** catches chunks written without going through MC's chunk saving, IE by other mods or external tools */
+	private static final long HEADER_MAX_AGE_IN_MS = TimeUnit.MINUTES.toMillis(1);
+	
+	
+	private final ServerLevelWrapper levelWrapper;
+	/** lazily populated since the level's data folder may not be available when the wrapper is created */
+	private File regionFolder = null;
+	/** 
+	 * lazily populated, used to get the same {@link RegionFile} objects (and locks) MC is using
+	 * so we never see a partially written header 
+	 */
+	private RegionFileStorageExternalCache regionFileCache = null;
+	
+	private final ConcurrentHashMap<Long, RegionBitmap> bitmapByRegionPos = new ConcurrentHashMap<>();
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	public RegionChunkExistenceCache(ServerLevelWrapper levelWrapper) { this.levelWrapper = levelWrapper; }
+	
+	
+	
+	//=========//
+	// methods //
+	//=========//
+	
+	/** 
+	 * @return false if the chunk definitely hasn't been saved to this level's region files.
+	 *          True if the chunk may exist.
+	 */
+	public boolean mayChunkExist(ChunkPos pos)
+	{
+		RegionBitmap bitmap = this.getOrCreateBitmap(pos);
+		int localIndex = getLocalIndex(pos);
+		if (bitmap.get(localIndex))
+		{
+			// bits are never cleared, so there's no need to check the header
+			return true;
+		}
+		
+		if (bitmap.isHeaderStale())
+		{
+			this.tryLoadHeader(pos, bitmap);
+		}
+		return !bitmap.headerTrusted || bitmap.get(localIndex);
+	}
+	
+	/** Should be called whenever MC saves a chunk so the cached bitmaps stay up to date. */
+	public void markChunkExists(ChunkPos pos) { this.getOrCreateBitmap(pos).set(getLocalIndex(pos)); }
+	
+	/** 
+	 * Forces every region's header to be re-read the next time a chunk in it is checked. <br>
+	 * Should be called if region files may have been changed without going through MC's chunk saving.
+	 */
+	public void invalidate()
+	{
+		for (RegionBitmap bitmap : this.bitmapByRegionPos.values())
+		{
+			bitmap.headerLoadTimeMs = 0;
+		}
+	}
+	
+	/** closes any region files DH opened, MC's are left alone */
+	public synchronized void close()
+	{
+		this.bitmapByRegionPos.clear();
+		
+		if (this.regionFileCache != null)
+		{
+			try
+			{
+				this.regionFileCache.close();
+			}
+			catch (IOException e)
+			{
+				LOGGER.warn("Unable to close region files, error: ["+e.getMessage()+"].", e);
+			}
+			this.regionFileCache = null;
+		}
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	private RegionBitmap getOrCreateBitmap(ChunkPos pos)
+	{
+		// fast path, avoids computeIfAbsent's locking once the bitmap exists
+		long regionPos = ChunkPos.asLong(pos.getRegionX(), pos.getRegionZ());
+		RegionBitmap bitmap = this.bitmapByRegionPos.get(regionPos);
+		if (bitmap == null)
+		{
+			bitmap = this.bitmapByRegionPos.computeIfAbsent(regionPos, (newRegionPos) -> new RegionBitmap());
+		}
+		return bitmap;
+	}
+	
+	private void tryLoadHeader(ChunkPos pos, RegionBitmap bitmap)
+	{
+		synchronized (bitmap)
+		{
+			if (!bitmap.isHeaderStale())
+			{
+				return;
+			}
+			
+			// if the header can't be read every chunk in the region is treated as potentially existing until it's retried
+			bitmap.headerTrusted = false;
+			bitmap.headerLoadTimeMs = System.currentTimeMillis();
+			
+			RegionFile regionFile = this.tryGetRegionFile(pos);
+			if (regionFile == null)
+			{
+				return;
+			}
+			
+			int minChunkX = pos.getRegionX() * RegionFileImporter.REGION_WIDTH_IN_CHUNKS;
+			int minChunkZ = pos.getRegionZ() * RegionFileImporter.REGION_WIDTH_IN_CHUNKS;
+			
+			// the region file's methods are synchronized on itself,
+			// locking it means we won't see a header MC is in the middle of writing
+			synchronized (regionFile)
+			{
+				for (int i = 0; i < RegionFileImporter.CHUNKS_PER_REGION; i++)
+				{
+					ChunkPos chunkPos = new ChunkPos(
+							minChunkX + (i & (RegionFileImporter.REGION_WIDTH_IN_CHUNKS - 1)),
+							minChunkZ + (i / RegionFileImporter.REGION_WIDTH_IN_CHUNKS));
+					if (regionFile.getOffset(chunkPos) != 0)
+					{
+						bitmap.set(i);
+					}
+				}
+			}
+			
+			bitmap.headerTrusted = true;
+		}
+	}
+	/** @return null if the region file doesn't exist or couldn't be opened */
+	private RegionFile tryGetRegionFile(ChunkPos pos)
+	{
+		if (this.regionFolder == null)
+		{
+			// the data folder is "<dimension>/data", region files are in "<dimension>/region"
+			this.regionFolder = new File(this.levelWrapper.getMcSaveFolder().getParentFile(), "region");
+		}
+		
+		// checked first since opening a region file that doesn't exist would create it
+		File file = new File(this.regionFolder, "r." + pos.getRegionX() + "." + pos.getRegionZ() + ".mca");
+		if (!file.exists())
+		{
+			return null;
+		}
+		
+		try
+		{
+			return this.getRegionFileCache().getRegionFile(pos);
+		}
+		catch (IOException e)
+		{
+			LOGGER.warn("Unable to read region header ["+file+"], error: ["+e.getMessage()+"].");
+			return null;
+		}
+	}
+	private synchronized RegionFileStorageExternalCache getRegionFileCache()
+	{
+		if (this.regionFileCache == null)
+		{
+			this.regionFileCache = new RegionFileStorageExternalCache(this.levelWrapper.getWrappedMcObject().getChunkSource().chunkMap.worker.storage);
+		}
+		return this.regionFileCache;
+	}
+	
+	/** @return the 0-1023 index MC uses for this chunk in its region's location table */
+	private static int getLocalIndex(ChunkPos pos) { return (pos.x & 31) + (pos.z & 31) * RegionFileImporter.REGION_WIDTH_IN_CHUNKS; }
+	
+	
+	
+	//================//
+	// helper classes //
+	//================//
+	
+	private static class RegionBitmap
+	{
+		/** bits are only ever set, never cleared */
+		private final AtomicLongArray bits = new AtomicLongArray(LONGS_PER_BITMAP);
+		/** 0 if the header hasn't been read yet or was invalidated */
+		public volatile long headerLoadTimeMs = 0;
+		/** false if the header couldn't be read, in which case any chunk may exist */
+		public volatile boolean headerTrusted = false;
+		
+		
+		public boolean isHeaderStale() { return this.headerLoadTimeMs == 0 || System.currentTimeMillis() - this.headerLoadTimeMs > HEADER_MAX_AGE_IN_MS; }
+		
+		public boolean get(int index) { return (this.bits.get(index >>> 6) & (1L << index)) != 0; }
+		
+		public void set(int index)
+		{
+			int arrayIndex = index >>> 6;
+			long mask = 1L << index;
+			long current;
+			do
+			{
+				current = this.bits.get(arrayIndex);
+				if ((current & mask) != 0)
+				{
+					return;
+				}
+			}
+			while (!this.bits.compareAndSet(arrayIndex, current, current | mask));
+		}
+		
+	}
+	
+}
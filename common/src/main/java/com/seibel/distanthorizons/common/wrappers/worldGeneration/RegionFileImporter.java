@@ -0,0 +1,680 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.worldGeneration;
+
+import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
+import com.seibel.distanthorizons.common.wrappers.world.ServerLevelWrapper;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.mimicObject.ChunkLoader;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.mimicObject.RegionFileStorageExternalCache;
+import com.seibel.distanthorizons.core.api.internal.ServerApi;
+import com.seibel.distanthorizons.core.config.Config;
+import com.seibel.distanthorizons.core.dependencyInjection.SingletonInjector;
+import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
+import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
+import com.seibel.distanthorizons.core.wrapperInterfaces.modAccessor.IModChecker;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.storage.RegionFile;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports every chunk in a level's region folder by walking each
+ * <code>.mca</code> file sequentially (sorted by header sector offset)
+ * instead of reaching chunks one at a time in random order. <br><br>
+ *
+ * Decompression, NBT parsing and chunk creation are done in parallel on the file handler threads,
+ * while the chunks are handed to the LOD builder in region order
+ * with a bounded number of chunks in flight. <br><br>
+ *
+ * Each chunk is read while holding the lock of MC's {@link RegionFile}
+ * so the server can't write to or move the chunk's sectors mid-read. <br>
+ * Can't be started when the C2ME mod is present,
+ * since C2ME replaces MC's region file handling and may be writing to the same files.
+ *
+ * @see BatchGenerationEnvironment
+ */
+public class RegionFileImporter
+{
+	private static final Logger LOGGER = DhLoggerBuilder.getLogger();
+	
+	/** MC region files are 32x32 chunks */
+	public static final int REGION_WIDTH_IN_CHUNKS = 32;
+	public static final int CHUNKS_PER_REGION = REGION_WIDTH_IN_CHUNKS * REGION_WIDTH_IN_CHUNKS;
+	public static final int SECTOR_SIZE_IN_BYTES = 4096;
+	/** location table + timestamp table */
+	public static final int HEADER_SIZE_IN_BYTES = SECTOR_SIZE_IN_BYTES * 2;
+	
+	/** set if the chunk is stored in a separate "c.X.Z.mcc" file */
+	public static final int EXTERNAL_STREAM_FLAG = 128;
+	
+	private static final long PROGRESS_LOG_INTERVAL_IN_MS = TimeUnit.SECONDS.toMillis(5);
+	
+	private static final IModChecker MOD_CHECKER = SingletonInjector.INSTANCE.get(IModChecker.class);
+	
+	/** entries are removed when their level unloads so old levels aren't kept in memory */
+	private static final ConcurrentHashMap<ServerLevel, RegionFileImporter> IMPORTER_BY_LEVEL = new ConcurrentHashMap<>();
+	
+	
+	private final ServerLevel level;
+	private final ServerLevelWrapper levelWrapper;
+	private final File regionFolder;
+	/** used to get the same {@link RegionFile} objects (and locks) MC is using */
+	private final RegionFileStorageExternalCache regionFileCache;
+	
+	/** how many chunks can be read from disk but not yet handed to the LOD builder */
+	private final int maxChunksInFlight;
+	
+	private final AtomicBoolean running = new AtomicBoolean(false);
+	private final AtomicBoolean cancelRequested = new AtomicBoolean(false);
+	
+	// progress //
+	private volatile int totalChunkCount = 0;
+	private final AtomicInteger importedChunkCount = new AtomicInteger(0);
+	private final AtomicInteger failedChunkCount = new AtomicInteger(0);
+	private volatile long bytesRead = 0;
+	private volatile long startTimeMs = 0;
+	private long lastProgressLogTimeMs = 0;
+	
+	
+	
+	//=============//
+	// constructor //
+	//=============//
+	
+	private RegionFileImporter(ServerLevel level, int maxChunksInFlight)
+	{
+		this.level = level;
+		this.levelWrapper = ServerLevelWrapper.getWrapper(level);
+		// the data folder is "<dimension>/data", region files are in "<dimension>/region"
+		this.regionFolder = new File(this.levelWrapper.getMcSaveFolder().getParentFile(), "region");
+		this.regionFileCache = new RegionFileStorageExternalCache(level.getChunkSource().chunkMap.worker.storage);
+		
+		this.maxChunksInFlight = Math.max(1, maxChunksInFlight);
+	}
+	
+	
+	
+	//===================//
+	// importer tracking //
+	//===================//
+	
+	/** @return null if no import has been started for the given level since it was loaded */
+	@Nullable
+	public static RegionFileImporter getImporter(ServerLevel level) { return IMPORTER_BY_LEVEL.get(level); }
+	
+	/** @return null if the import was started, otherwise a message explaining why it couldn't be */
+	@Nullable
+	public static String tryStartImport(ServerLevel level, int maxChunksInFlight)
+	{
+		if (MOD_CHECKER.isModLoaded("c2me"))
+		{
+			return "Region import isn't supported while C2ME is installed, since C2ME may be writing to the same region files.";
+		}
+		
+		// imports are usually run after region files were copied in, which doesn't go through MC's chunk saving
+		ServerLevelWrapper.getWrapper(level).getChunkExistenceCache().invalidate();
+		
+		// done in a single compute() so two commands run at the same time can't both start an import,
+		// compute() is used instead of computeIfAbsent() so finished importers can be replaced
+		String[] errorMessage = { null };
+		IMPORTER_BY_LEVEL.compute(level, (key, existingImporter) ->
+		{
+			if (existingImporter != null && existingImporter.isRunning())
+			{
+				errorMessage[0] = "A region import is already running for this level: " + existingImporter.getProgressString();
+				return existingImporter;
+			}
+			
+			RegionFileImporter importer = new RegionFileImporter(level, maxChunksInFlight);
+			if (!importer.startAsync())
+			{
+				errorMessage[0] = "DH's file handler threads aren't available, try again once the world has finished loading.";
+				return existingImporter;
+			}
+			return importer;
+		});
+		return errorMessage[0];
+	}
+	
+	/** cancels any running import for the level and stops tracking it */
+	public static void onLevelUnload(ServerLevel level)
+	{
+		RegionFileImporter importer = IMPORTER_BY_LEVEL.remove(level);
+		if (importer != null)
+		{
+			importer.cancel();
+		}
+	}
+	
+	
+	
+	//================//
+	// import control //
+	//================//
+	
+	/**
+	 * Starts the import on one of DH's file handler threads.
+	 * @return false if this importer is already running or the file handler executor isn't available
+	 */
+	public boolean startAsync()
+	{
+		if (!this.running.compareAndSet(false, true))
+		{
+			return false;
+		}
+		
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		if (executor == null)
+		{
+			this.running.set(false);
+			return false;
+		}
+		
+		try
+		{
+			executor.execute(this::runImportAndCleanUp);
+			return true;
+		}
+		catch (RejectedExecutionException e)
+		{
+			// the executor is shutting down
+			this.running.set(false);
+			return false;
+		}
+	}
+	private void runImportAndCleanUp()
+	{
+		try
+		{
+			this.runImport();
+		}
+		catch (Exception e)
+		{
+			LOGGER.error("Region import for level ["+this.levelWrapper.getDimensionName()+"] failed, error: ["+e.getMessage()+"].", e);
+		}
+		finally
+		{
+			try
+			{
+				// only closes the region files DH opened, MC's are left alone
+				this.regionFileCache.close();
+			}
+			catch (IOException e)
+			{
+				LOGGER.warn("Unable to close region files after import, error: ["+e.getMessage()+"].", e);
+			}
+			
+			this.running.set(false);
+		}
+	}
+	
+	public void cancel() { this.cancelRequested.set(true); }
+	
+	public boolean isRunning() { return this.running.get(); }
+	
+	
+	
+	//===============//
+	// import logic  //
+	//===============//
+	
+	private void runImport() throws IOException
+	{
+		File[] regionFiles = this.regionFolder.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".mca"));
+		if (regionFiles == null || regionFiles.length == 0)
+		{
+			LOGGER.info("No region files found in ["+this.regionFolder+"], nothing to import.");
+			return;
+		}
+		// sort by name so the import order is deterministic
+		Arrays.sort(regionFiles, Comparator.comparing(File::getName));
+		
+		
+		// read every header first so we know the total number of chunks for the ETA
+		ArrayList<RegionHeader> headers = new ArrayList<>(regionFiles.length);
+		int totalChunks = 0;
+		for (File regionFile : regionFiles)
+		{
+			RegionHeader header = RegionHeader.tryRead(regionFile, this.regionFileCache);
+			if (header != null && header.chunkCount != 0)
+			{
+				headers.add(header);
+				totalChunks += header.chunkCount;
+			}
+		}
+		this.totalChunkCount = totalChunks;
+		this.startTimeMs = System.currentTimeMillis();
+		this.lastProgressLogTimeMs = this.startTimeMs;
+		LOGGER.info("Starting region import for level ["+this.levelWrapper.getDimensionName()+"], ["+headers.size()+"] region files containing ["+totalChunks+"] chunks.");
+		
+		
+		for (RegionHeader header : headers)
+		{
+			if (this.cancelRequested.get())
+			{
+				LOGGER.info("Region import for level ["+this.levelWrapper.getDimensionName()+"] canceled.");
+				return;
+			}
+			
+			this.importRegion(header);
+		}
+		
+		LOGGER.info("Region import for level ["+this.levelWrapper.getDimensionName()+"] complete. " + this.getProgressString());
+	}
+	
+	private void importRegion(RegionHeader header) throws IOException
+	{
+		RegionFile regionFile = this.regionFileCache.getRegionFile(header.getMinChunkPos());
+		if (regionFile == null)
+		{
+			this.failedChunkCount.addAndGet(header.chunkCount);
+			LOGGER.warn("Unable to open region file ["+header.file.getName()+"], skipping its ["+header.chunkCount+"] chunks.");
+			return;
+		}
+		
+		// chunks are submitted in region order, each chunk is only handed off
+		// once every chunk before it has also been handed off
+		ArrayDeque<CompletableFuture<ChunkWrapper>> pendingChunks = new ArrayDeque<>(this.maxChunksInFlight);
+		
+		try
+		{
+			ByteBuffer lengthBuffer = ByteBuffer.allocate(5);
+			
+			// the entries are sorted by sector offset so this reads the file front to back
+			for (int i = 0; i < header.chunkCount; i++)
+			{
+				if (this.cancelRequested.get())
+				{
+					break;
+				}
+				
+				int localIndex = header.sortedLocalIndices[i];
+				ChunkPos chunkPos = new ChunkPos(
+						header.regionX * REGION_WIDTH_IN_CHUNKS + (localIndex & (REGION_WIDTH_IN_CHUNKS - 1)),
+						header.regionZ * REGION_WIDTH_IN_CHUNKS + (localIndex / REGION_WIDTH_IN_CHUNKS));
+				
+				byte[] compressedData;
+				byte compressionType;
+				try
+				{
+					// the region file's methods are synchronized on itself,
+					// holding its lock prevents MC from writing or moving the chunk's sectors while we read them
+					synchronized (regionFile)
+					{
+						// re-read the location since the server may have moved the chunk after the header was read
+						int packedLocation = regionFile.getOffset(chunkPos);
+						if (packedLocation == 0)
+						{
+							throw new IOException("Chunk was removed from the region file during the import.");
+						}
+						
+						FileChannel channel = regionFile.file;
+						long byteOffset = (long) getSectorOffset(packedLocation) * SECTOR_SIZE_IN_BYTES;
+						if (byteOffset + 5 > channel.size())
+						{
+							throw new IOException("Chunk sector offset ["+byteOffset+"] is outside the file.");
+						}
+						
+						// 4 bytes length + 1 byte compression type
+						lengthBuffer.clear();
+						readFully(channel, lengthBuffer, byteOffset);
+						lengthBuffer.flip();
+						int length = lengthBuffer.getInt();
+						compressionType = lengthBuffer.get();
+						
+						int maxLength = getSectorCount(packedLocation) * SECTOR_SIZE_IN_BYTES - 4;
+						if (length <= 0 || length > maxLength)
+						{
+							throw new IOException("Invalid chunk length ["+length+"], max length ["+maxLength+"].");
+						}
+						
+						if ((compressionType & EXTERNAL_STREAM_FLAG) != 0)
+						{
+							compressionType = (byte) (compressionType & ~EXTERNAL_STREAM_FLAG);
+							File externalFile = new File(this.regionFolder, "c." + chunkPos.x + "." + chunkPos.z + ".mcc");
+							compressedData = Files.readAllBytes(externalFile.toPath());
+						}
+						else
+						{
+							ByteBuffer dataBuffer = ByteBuffer.allocate(length - 1);
+							readFully(channel, dataBuffer, byteOffset + 5);
+							compressedData = dataBuffer.array();
+						}
+					}
+					this.bytesRead += compressedData.length;
+				}
+				catch (IOException e)
+				{
+					this.failedChunkCount.incrementAndGet();
+					LOGGER.warn("Unable to read chunk ["+chunkPos+"] from ["+header.file.getName()+"], error: ["+e.getMessage()+"].");
+					continue;
+				}
+				
+				
+				// decompress and parse in parallel
+				pendingChunks.add(this.createChunkWrapperAsync(chunkPos, compressionType, compressedData));
+				
+				// bound the number of chunks in memory
+				while (pendingChunks.size() >= this.maxChunksInFlight)
+				{
+					this.submitChunk(pendingChunks.poll());
+				}
+				
+				// hand off any chunks that are already done
+				while (!pendingChunks.isEmpty() && pendingChunks.peek().isDone())
+				{
+					this.submitChunk(pendingChunks.poll());
+				}
+			}
+		}
+		finally
+		{
+			while (!pendingChunks.isEmpty())
+			{
+				this.submitChunk(pendingChunks.poll());
+			}
+		}
+	}
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int read = channel.read(buffer, position);
+			if (read < 0)
+			{
+				throw new IOException("Unexpected end of file.");
+			}
+			position += read;
+		}
+	}
+	
+	/** runs inline if the file handler executor isn't available */
+	private CompletableFuture<ChunkWrapper> createChunkWrapperAsync(ChunkPos chunkPos, byte compressionType, byte[] compressedData)
+	{
+		ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
+		// the import itself is using one of the executor's threads,
+		// if it's the only thread queued chunks would never run while the import waits on them
+		if (executor != null && executor.getMaximumPoolSize() > 1)
+		{
+			try
+			{
+				return CompletableFuture.supplyAsync(() -> this.createChunkWrapper(chunkPos, compressionType, compressedData), executor);
+			}
+			catch (RejectedExecutionException ignore)
+			{
+				// the executor is shutting down
+			}
+		}
+		
+		return CompletableFuture.completedFuture(this.createChunkWrapper(chunkPos, compressionType, compressedData));
+	}
+	/** @return null if the chunk couldn't be parsed */
+	@Nullable
+	private ChunkWrapper createChunkWrapper(ChunkPos chunkPos, byte compressionType, byte[] compressedData)
+	{
+		try
+		{
+			CompoundTag chunkData = this.readNbt(chunkPos, compressionType, compressedData);
+			if (chunkData == null)
+			{
+				return null;
+			}
+			
+			LevelChunk chunk = ChunkLoader.read(this.level, chunkPos, chunkData);
+			if (chunk == null)
+			{
+				return null;
+			}
+			
+			ChunkWrapper chunkWrapper = new ChunkWrapper(chunk, this.levelWrapper);
+			if (Config.Common.LodBuilding.pullLightingForPregeneratedChunks.get())
+			{
+				ChunkLoader.CombinedChunkLightStorage combinedLights = ChunkLoader.readLight(chunk, chunkData);
+				if (combinedLights != null)
+				{
+					chunkWrapper.setBlockLightStorage(combinedLights.blockLightStorage);
+					chunkWrapper.setSkyLightStorage(combinedLights.skyLightStorage);
+					chunkWrapper.setIsDhBlockLightCorrect(true);
+					chunkWrapper.setIsDhSkyLightCorrect(true);
+				}
+			}
+			return chunkWrapper;
+		}
+		catch (Exception e)
+		{
+			LOGGER.warn("Unable to parse chunk ["+chunkPos+"], error: ["+e.getMessage()+"].");
+			return null;
+		}
+	}
+	
+	/** falls back to MC's reader for compression types or data the fast path can't handle */
+	@Nullable
+	private CompoundTag readNbt(ChunkPos chunkPos, byte compressionType, byte[] compressedData) throws IOException
+	{
+		if (RegionChunkDecompressor.isSupported(compressionType))
+		{
+			try
+			{
+				return RegionChunkDecompressor.get().readNbt(compressionType, compressedData, 0, compressedData.length);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				LOGGER.warn("Unable to decompress chunk ["+chunkPos+"] with compression type ["+compressionType+"], falling back to Minecraft's reader. Error: ["+e.getMessage()+"].");
+			}
+		}
+		
+		return this.regionFileCache.readWithMcStream(chunkPos);
+	}
+	
+	/** blocks until the given chunk has been parsed */
+	private void submitChunk(CompletableFuture<ChunkWrapper> future)
+	{
+		ChunkWrapper chunkWrapper;
+		try
+		{
+			chunkWrapper = future.join();
+		}
+		catch (CompletionException e)
+		{
+			chunkWrapper = null;
+		}
+		
+		if (chunkWrapper != null)
+		{
+			ServerApi.INSTANCE.serverChunkSaveEvent(chunkWrapper, this.levelWrapper);
+			this.importedChunkCount.incrementAndGet();
+		}
+		else
+		{
+			this.failedChunkCount.incrementAndGet();
+		}
+		
+		long now = System.currentTimeMillis();
+		if (now - this.lastProgressLogTimeMs >= PROGRESS_LOG_INTERVAL_IN_MS)
+		{
+			this.lastProgressLogTimeMs = now;
+			LOGGER.info("Region import for level ["+this.levelWrapper.getDimensionName()+"]: " + this.getProgressString());
+		}
+	}
+	
+	
+	
+	//==========//
+	// progress //
+	//==========//
+	
+	public String getProgressString()
+	{
+		int processed = this.importedChunkCount.get() + this.failedChunkCount.get();
+		int total = this.totalChunkCount;
+		long elapsedMs = Math.max(1, System.currentTimeMillis() - this.startTimeMs);
+		
+		double chunksPerSecond = processed / (elapsedMs / 1000.0);
+		double megabytesPerSecond = (this.bytesRead / (1024.0 * 1024.0)) / (elapsedMs / 1000.0);
+		String eta = (chunksPerSecond > 0) ? formatDuration((long) ((total - processed) / chunksPerSecond * 1000)) : "unknown";
+		
+		return String.format("[%d/%d] chunks (%.1f%%), [%d] failed, %.1f chunks/s, %.2f MB/s, ETA [%s]",
+				processed, total, (total == 0) ? 100.0 : (processed * 100.0 / total),
+				this.failedChunkCount.get(), chunksPerSecond, megabytesPerSecond, eta);
+	}
+	private static String formatDuration(long durationMs)
+	{
+		long seconds = durationMs / 1000;
+		return String.format("%d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	/** location entries are 3 bytes of sector offset followed by 1 byte of sector count */
+	public static int getSectorOffset(int packedLocation) { return packedLocation >>> 8; }
+	public static int getSectorCount(int packedLocation) { return packedLocation & 0xFF; }
+	
+	
+	
+	//================//
+	// helper classes //
+	//================//
+	
+	/** the location table of a single region file, sorted by sector offset */
+	private static class RegionHeader
+	{
+		public final File file;
+		public final int regionX;
+		public final int regionZ;
+		
+		public final int chunkCount;
+		public final int[] sortedLocations;
+		/** the 0-1023 index of each chunk in the region, same order as {@link RegionHeader#sortedLocations} */
+		public final int[] sortedLocalIndices;
+		
+		
+		private RegionHeader(File file, int regionX, int regionZ, int[] locations)
+		{
+			this.file = file;
+			this.regionX = regionX;
+			this.regionZ = regionZ;
+			
+			// pack each location and index into a long so they can be sorted together
+			long[] sortKeys = new long[CHUNKS_PER_REGION];
+			int count = 0;
+			for (int i = 0; i < CHUNKS_PER_REGION; i++)
+			{
+				if (getSectorOffset(locations[i]) != 0 && getSectorCount(locations[i]) != 0)
+				{
+					sortKeys[count] = ((long) getSectorOffset(locations[i]) << 32) | ((long) i << 16) | getSectorCount(locations[i]);
+					count++;
+				}
+			}
+			Arrays.sort(sortKeys, 0, count);
+			
+			this.chunkCount = count;
+			this.sortedLocations = new int[count];
+			this.sortedLocalIndices = new int[count];
+			for (int i = 0; i < count; i++)
+			{
+				int sectorOffset = (int) (sortKeys[i] >>> 32);
+				int localIndex = (int) ((sortKeys[i] >>> 16) & 0xFFFF);
+				int sectorCount = (int) (sortKeys[i] & 0xFF);
+				
+				this.sortedLocations[i] = (sectorOffset << 8) | sectorCount;
+				this.sortedLocalIndices[i] = localIndex;
+			}
+		}
+		
+		public ChunkPos getMinChunkPos() { return new ChunkPos(this.regionX * REGION_WIDTH_IN_CHUNKS, this.regionZ * REGION_WIDTH_IN_CHUNKS); }
+		
+		/** @return null if the file isn't a valid region file */
+		@Nullable
+		public static RegionHeader tryRead(File file, RegionFileStorageExternalCache regionFileCache)
+		{
+			// file names are formatted "r.X.Z.mca"
+			String[] nameParts = file.getName().split("\\.");
+			if (nameParts.length != 4)
+			{
+				return null;
+			}
+			
+			int regionX;
+			int regionZ;
+			try
+			{
+				regionX = Integer.parseInt(nameParts[1]);
+				regionZ = Integer.parseInt(nameParts[2]);
+			}
+			catch (NumberFormatException e)
+			{
+				return null;
+			}
+			
+			try
+			{
+				RegionFile regionFile = regionFileCache.getRegionFile(new ChunkPos(regionX * REGION_WIDTH_IN_CHUNKS, regionZ * REGION_WIDTH_IN_CHUNKS));
+				if (regionFile == null)
+				{
+					return null;
+				}
+				
+				// read through MC's region file (and under its lock) so we don't see a partially written header
+				int[] locations = new int[CHUNKS_PER_REGION];
+				synchronized (regionFile)
+				{
+					for (int i = 0; i < CHUNKS_PER_REGION; i++)
+					{
+						locations[i] = regionFile.getOffset(new ChunkPos(
+								regionX * REGION_WIDTH_IN_CHUNKS + (i & (REGION_WIDTH_IN_CHUNKS - 1)),
+								regionZ * REGION_WIDTH_IN_CHUNKS + (i / REGION_WIDTH_IN_CHUNKS)));
+					}
+				}
+				return new RegionHeader(file, regionX, regionZ, locations);
+			}
+			catch (IOException e)
+			{
+				LOGGER.warn("Unable to read region header for ["+file.getName()+"], error: ["+e.getMessage()+"].");
+				return null;
+			}
+		}
+	}
+	
+}
@@ -26,6 +26,7 @@ import com.seibel.distanthorizons.common.wrappers.worldGeneration.BatchGeneratio
 
 import com.seibel.distanthorizons.core.logging.ConfigBasedLogger;
 import com.seibel.distanthorizons.core.util.LodUtil;
+import org.jetbrains.annotations.Nullable;
 import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.ChunkLightStorage;
 
 import java.util.Objects;
@@ -411,13 +412,17 @@ public class ChunkLoader
 		// MC 1.16 and 1.17 doesn't have the necessary NBT info
 		return null;
 		#else
-		
-		CombinedChunkLightStorage combinedStorage = new CombinedChunkLightStorage(ChunkWrapper.getInclusiveMinBuildHeight(chunk), ChunkWrapper.getExclusiveMaxBuildHeight(chunk));
+		return readLight(chunk.getPos(), chunkData, ChunkWrapper.getInclusiveMinBuildHeight(chunk), ChunkWrapper.getExclusiveMaxBuildHeight(chunk));
+		#endif
+	}
+	#if MC_VER > MC_1_17_1
+	/** split from {@link ChunkLoader#readLight(ChunkAccess, CompoundTag)} so it can be tested without a chunk */
+	static CombinedChunkLightStorage readLight(ChunkPos chunkPos, CompoundTag chunkData, int minBuildHeight, int maxBuildHeight)
+	{
+		CombinedChunkLightStorage combinedStorage = new CombinedChunkLightStorage(minBuildHeight, maxBuildHeight);
 		ChunkLightStorage blockLightStorage = combinedStorage.blockLightStorage;
 		ChunkLightStorage skyLightStorage = combinedStorage.skyLightStorage;
 		
-		boolean foundSkyLight = false;
-		
 		
 		
 		//===================//
@@ -430,7 +435,7 @@ public class ChunkLoader
 			if (!lightingSectionErrorLogged)
 			{
 				lightingSectionErrorLogged = true;
-				LOGGER.error("No sections found for chunk at pos ["+chunk.getPos()+"] chunk data may be out of date.");
+				LOGGER.error("No sections found for chunk at pos ["+chunkPos+"] chunk data may be out of date.");
 			}
 			return null;
 		}
@@ -447,13 +452,20 @@ public class ChunkLoader
 		
 		
 		
-		//===================//
-		// get lighting info //
-		//===================//
+		//=====================//
+		// index sections by Y //
+		//=====================//
 		
-		for (int sectionIndex = 0; sectionIndex < chunkSectionListTag.size(); sectionIndex++)
+		// the section list isn't guaranteed to be in order or contiguous,
+		// and also contains the light-only sections just below and above the build height
+		int minSectionY = Math.floorDiv(minBuildHeight, LodUtil.CHUNK_WIDTH);
+		int sectionCount = Math.floorDiv(maxBuildHeight - 1, LodUtil.CHUNK_WIDTH) - minSectionY + 1;
+		byte[][] blockLightNibblesBySection = new byte[sectionCount][];
+		byte[][] skyLightNibblesBySection = new byte[sectionCount][];
+		
+		for (int i = 0; i < chunkSectionListTag.size(); i++)
 		{
-			Tag chunkSectionTag = chunkSectionListTag.get(sectionIndex);
+			Tag chunkSectionTag = chunkSectionListTag.get(i);
 			if (!(chunkSectionTag instanceof CompoundTag))
 			{
 				if (!lightingSectionErrorLogged)
@@ -465,54 +477,121 @@ public class ChunkLoader
 			}
 			CompoundTag chunkSectionCompoundTag = (CompoundTag) chunkSectionTag;
 			
+			int sectionIndex = chunkSectionCompoundTag.getByte("Y") - minSectionY;
+			if (sectionIndex < 0 || sectionIndex >= sectionCount)
+			{
+				continue;
+			}
 			
-			// if null all lights = 0
-			byte[] blockLightNibbleArray = chunkSectionCompoundTag.getByteArray("BlockLight");
-			byte[] skyLightNibbleArray = chunkSectionCompoundTag.getByteArray("SkyLight");
+			// empty if missing, which means all lights = 0
+			blockLightNibblesBySection[sectionIndex] = chunkSectionCompoundTag.getByteArray("BlockLight");
+			skyLightNibblesBySection[sectionIndex] = chunkSectionCompoundTag.getByteArray("SkyLight");
+		}
+		
+		
+		
+		//===================//
+		// get lighting info //
+		//===================//
+		
+		boolean foundSkyLight = false;
+		for (int sectionIndex = 0; sectionIndex < sectionCount; sectionIndex++)
+		{
+			byte[] blockLightNibbleArray = blockLightNibblesBySection[sectionIndex];
+			byte[] skyLightNibbleArray = skyLightNibblesBySection[sectionIndex];
 			
 			// if any sky light was found then all lights above will be max brightness
-			if (skyLightNibbleArray.length != 0)
+			if (skyLightNibbleArray != null && skyLightNibbleArray.length != 0)
 			{
 				foundSkyLight = true;
 			}
 			
-			for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+			int sectionMinY = (minSectionY + sectionIndex) * LodUtil.CHUNK_WIDTH;
+			copySectionLight(blockLightStorage, blockLightNibbleArray, sectionMinY, minBuildHeight, maxBuildHeight, (byte) 0);
+			copySectionLight(skyLightStorage, skyLightNibbleArray, sectionMinY, minBuildHeight, maxBuildHeight, foundSkyLight ? (byte) LodUtil.MAX_MC_LIGHT : (byte) 0);
+		}
+		
+		return combinedStorage;
+	}
+	#endif
+	/**
+	 * Copies a 16x16x16 section's nibble array into the given storage. <br>
+	 * Missing and uniform sections are filled with a single value
+	 * instead of decoding each voxel. <br><br>
+	 * 
+	 * source: https://minecraft.wiki/w/Chunk_format#Block_Format
+	 * 
+	 * @param emptyValue used if the nibble array is null or empty
+	 */
+	private static void copySectionLight(ChunkLightStorage storage, @Nullable byte[] nibbleArray, int sectionMinY, int minBuildHeight, int maxBuildHeight, byte emptyValue)
+	{
+		// the bottom/top sections may be partially outside the build height
+		int minRelY = Math.max(0, minBuildHeight - sectionMinY);
+		int maxRelY = Math.min(LodUtil.CHUNK_WIDTH, maxBuildHeight - sectionMinY);
+		
+		// 4096 nibbles
+		if (nibbleArray == null || nibbleArray.length != 2048)
+		{
+			fillSectionLight(storage, sectionMinY, minRelY, maxRelY, emptyValue);
+			return;
+		}
+		
+		int uniformValue = getUniformNibbleValue(nibbleArray);
+		if (uniformValue != -1)
+		{
+			fillSectionLight(storage, sectionMinY, minRelY, maxRelY, (byte) uniformValue);
+			return;
+		}
+		
+		
+		// nibbles are stored in YZX order with two per byte (low nibble first),
+		// so each byte covers two neighboring X positions
+		for (int relY = minRelY; relY < maxRelY; relY++)
+		{
+			int y = sectionMinY + relY;
+			int byteIndex = relY * (LodUtil.CHUNK_WIDTH * LodUtil.CHUNK_WIDTH / 2);
+			for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
 			{
-				for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+				for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX += 2)
 				{
-					// chunk sections are also 16 blocks tall
-					for (int relY = 0; relY < LodUtil.CHUNK_WIDTH; relY++)
-					{
-						int blockPosIndex = relY*16*16 + relZ*16 + relX;
-						byte blockLight = (blockLightNibbleArray.length == 0) ? 0 : getNibbleAtIndex(blockLightNibbleArray, blockPosIndex);
-						byte skyLight = (skyLightNibbleArray.length == 0) ? 0 : getNibbleAtIndex(skyLightNibbleArray, blockPosIndex);
-						if (skyLightNibbleArray.length == 0 && foundSkyLight)
-						{
-							skyLight = LodUtil.MAX_MC_LIGHT;
-						}
-						
-						int y = relY + (sectionIndex * LodUtil.CHUNK_WIDTH) + ChunkWrapper.getInclusiveMinBuildHeight(chunk);
-						blockLightStorage.set(relX, y, relZ, blockLight);
-						skyLightStorage.set(relX, y, relZ, skyLight);
-					}
+					byte packedNibbles = nibbleArray[byteIndex++];
+					storage.set(relX, y, relZ, (byte) (packedNibbles & 0x0F));
+					storage.set(relX + 1, y, relZ, (byte) ((packedNibbles >> 4) & 0x0F));
 				}
 			}
 		}
-		
-		return combinedStorage;
-		#endif
 	}
-	/** source: https://minecraft.wiki/w/Chunk_format#Block_Format */
-	private static byte getNibbleAtIndex(byte[] arr, int index)
+	private static void fillSectionLight(ChunkLightStorage storage, int sectionMinY, int minRelY, int maxRelY, byte value)
 	{
-		if (index % 2 == 0)
+		for (int relY = minRelY; relY < maxRelY; relY++)
 		{
-			return (byte)(arr[index/2] & 0x0F);
+			int y = sectionMinY + relY;
+			for (int relZ = 0; relZ < LodUtil.CHUNK_WIDTH; relZ++)
+			{
+				for (int relX = 0; relX < LodUtil.CHUNK_WIDTH; relX++)
+				{
+					storage.set(relX, y, relZ, value);
+				}
+			}
 		}
-		else
+	}
+	/** @return -1 if the nibble array contains more than one value */
+	private static int getUniformNibbleValue(byte[] nibbleArray)
+	{
+		byte first = nibbleArray[0];
+		if (((first >> 4) & 0x0F) != (first & 0x0F))
+		{
+			return -1;
+		}
+		
+		for (int i = 1; i < nibbleArray.length; i++)
 		{
-			return (byte)((arr[index/2]>>4) & 0x0F);
+			if (nibbleArray[i] != first)
+			{
+				return -1;
+			}
 		}
+		return first & 0x0F;
 	}
 	
 	private static void logBlockDeserializationWarning(ChunkPos chunkPos, int sectionYIndex, String message)
@@ -1,6 +1,8 @@
 package com.seibel.distanthorizons.common.wrappers.worldGeneration.mimicObject;
 
 import com.seibel.distanthorizons.common.wrappers.worldGeneration.BatchGenerationEnvironment;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.RegionChunkDecompressor;
+import com.seibel.distanthorizons.common.wrappers.worldGeneration.RegionFileImporter;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.NbtIo;
@@ -12,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -199,6 +202,85 @@ public class RegionFileStorageExternalCache implements AutoCloseable
 		}
 		
 		
+		RegionChunkDecompressor decompressor = RegionChunkDecompressor.get();
+		byte[] data;
+		int readLength = 0;
+		
+		// the region file's methods are synchronized on itself,
+		// locking it prevents MC from moving the chunk's sectors while we read them
+		synchronized (file)
+		{
+			int packedLocation = file.getOffset(pos);
+			if (packedLocation == 0)
+			{
+				return null;
+			}
+			
+			long byteOffset = (long) RegionFileImporter.getSectorOffset(packedLocation) * RegionFileImporter.SECTOR_SIZE_IN_BYTES;
+			int maxLength = RegionFileImporter.getSectorCount(packedLocation) * RegionFileImporter.SECTOR_SIZE_IN_BYTES;
+			data = decompressor.getInputBuffer(maxLength);
+			
+			ByteBuffer buffer = ByteBuffer.wrap(data, 0, maxLength);
+			while (buffer.hasRemaining())
+			{
+				int count = file.file.read(buffer, byteOffset + readLength);
+				if (count < 0)
+				{
+					break;
+				}
+				readLength += count;
+			}
+		}
+		
+		if (readLength < 5)
+		{
+			return null;
+		}
+		
+		// 4 bytes length + 1 byte compression type
+		int length = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+		byte compressionType = data[4];
+		if ((compressionType & RegionFileImporter.EXTERNAL_STREAM_FLAG) != 0
+			|| !RegionChunkDecompressor.isSupported(compressionType))
+		{
+			// oversized chunks are rare and custom/modded compression types
+			// are only known by MC (or the mod), let MC handle reading them
+			return this.readWithMcStream(file, pos);
+		}
+		else if (length <= 0 || length > readLength - 4)
+		{
+			// the chunk may have been partially written, let MC decide how to handle it
+			return this.readWithMcStream(file, pos);
+		}
+		
+		try
+		{
+			return decompressor.readNbt(compressionType, data, 5, length - 1);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			LOGGER.warn("Unable to decompress chunk ["+pos+"] with compression type ["+compressionType+"], falling back to Minecraft's reader. Error: ["+e.getMessage()+"].");
+			return this.readWithMcStream(file, pos);
+		}
+	}
+	/** 
+	 * Reads the chunk using MC's own stream handling, 
+	 * which supports every compression type MC (and any mods) know about.
+	 */
+	@Nullable
+	public CompoundTag readWithMcStream(ChunkPos pos) throws IOException
+	{
+		RegionFile file = this.getRegionFile(pos);
+		if (file == null)
+		{
+			return null;
+		}
+		
+		return this.readWithMcStream(file, pos);
+	}
+	@Nullable
+	private CompoundTag readWithMcStream(RegionFile file, ChunkPos pos)
+	{
 		try (DataInputStream stream = file.getChunkDataInputStream(pos))
 		{
 			if (stream == null)
@@ -208,8 +290,9 @@ public class RegionFileStorageExternalCache implements AutoCloseable
 			
 			return NbtIo.read(stream);
 		}
-		catch (Throwable e)
+		catch (Exception e)
 		{
+			LOGGER.warn("Unable to read chunk ["+pos+"] from region file, error: ["+e.getMessage()+"].", e);
 			return null;
 		}
 	}
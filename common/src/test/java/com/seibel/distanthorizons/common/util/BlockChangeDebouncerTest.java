@@ -0,0 +1,178 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.util;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+
+public class BlockChangeDebouncerTest
+{
+	private static final long START_MS = 1_000_000;
+	
+	
+	
+	@Test
+	public void editsInTheSameChunkAreMerged()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor level = createLevel();
+		
+		debouncer.onBlockChanged(level, 0, 0, START_MS);
+		BlockChangeDebouncer.PendingChunk pendingChunk = debouncer.getPendingChunk(0, 0);
+		Assertions.assertNotNull(pendingChunk);
+		
+		debouncer.onBlockChanged(level, 0, 0, START_MS + 100);
+		Assertions.assertSame(pendingChunk, debouncer.getPendingChunk(0, 0));
+		Assertions.assertEquals(START_MS, pendingChunk.firstChangeMs);
+		Assertions.assertEquals(START_MS + 100, pendingChunk.lastChangeMs);
+		
+		// other chunks are tracked separately
+		debouncer.onBlockChanged(level, 1, 0, START_MS + 100);
+		Assertions.assertNotSame(pendingChunk, debouncer.getPendingChunk(1, 0));
+	}
+	
+	@Test
+	public void flushWaitsForTheQuietPeriod()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor level = createLevel();
+		
+		debouncer.onBlockChanged(level, 0, 0, START_MS);
+		BlockChangeDebouncer.PendingChunk pendingChunk = debouncer.getPendingChunk(0, 0);
+		Assertions.assertFalse(pendingChunk.isReadyToFlush(START_MS + BlockChangeDebouncer.QUIET_PERIOD_IN_MS - 1));
+		Assertions.assertTrue(pendingChunk.isReadyToFlush(START_MS + BlockChangeDebouncer.QUIET_PERIOD_IN_MS));
+		
+		// another edit pushes the update back
+		long secondEditMs = START_MS + 400;
+		debouncer.onBlockChanged(level, 0, 0, secondEditMs);
+		Assertions.assertFalse(pendingChunk.isReadyToFlush(START_MS + BlockChangeDebouncer.QUIET_PERIOD_IN_MS));
+		Assertions.assertTrue(pendingChunk.isReadyToFlush(secondEditMs + BlockChangeDebouncer.QUIET_PERIOD_IN_MS));
+	}
+	
+	@Test
+	public void continuousEditsFlushAfterTheMaxDelay()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor level = createLevel();
+		
+		long maxDelayMs = START_MS + BlockChangeDebouncer.MAX_DELAY_IN_MS;
+		for (long now = START_MS; now < maxDelayMs; now += 100)
+		{
+			debouncer.onBlockChanged(level, 0, 0, now);
+		}
+		
+		BlockChangeDebouncer.PendingChunk pendingChunk = debouncer.getPendingChunk(0, 0);
+		Assertions.assertFalse(pendingChunk.isReadyToFlush(maxDelayMs - 1));
+		Assertions.assertTrue(pendingChunk.isReadyToFlush(maxDelayMs));
+	}
+	
+	@Test
+	public void onlyReadyChunksAreRemoved()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor level = createLevel();
+		long chunkPosLong = ChunkPos.asLong(0, 0);
+		
+		debouncer.onBlockChanged(level, 0, 0, START_MS);
+		BlockChangeDebouncer.PendingChunk pendingChunk = debouncer.getPendingChunk(0, 0);
+		
+		Assertions.assertFalse(debouncer.tryRemoveReadyChunk(chunkPosLong, pendingChunk, START_MS + 1));
+		Assertions.assertSame(pendingChunk, debouncer.getPendingChunk(0, 0));
+		
+		Assertions.assertTrue(debouncer.tryRemoveReadyChunk(chunkPosLong, pendingChunk, START_MS + BlockChangeDebouncer.QUIET_PERIOD_IN_MS));
+		Assertions.assertNull(debouncer.getPendingChunk(0, 0));
+	}
+	
+	@Test
+	public void editAfterTheReadyCheckIsNotLost()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor level = createLevel();
+		long chunkPosLong = ChunkPos.asLong(0, 0);
+		long flushMs = START_MS + BlockChangeDebouncer.QUIET_PERIOD_IN_MS;
+		
+		debouncer.onBlockChanged(level, 0, 0, START_MS);
+		BlockChangeDebouncer.PendingChunk pendingChunk = debouncer.getPendingChunk(0, 0);
+		Assertions.assertTrue(pendingChunk.isReadyToFlush(flushMs));
+		
+		// edited between tick() checking the chunk and removing it
+		debouncer.onBlockChanged(level, 0, 0, flushMs);
+		Assertions.assertFalse(debouncer.tryRemoveReadyChunk(chunkPosLong, pendingChunk, flushMs));
+		Assertions.assertSame(pendingChunk, debouncer.getPendingChunk(0, 0));
+	}
+	
+	@Test
+	public void levelChangesReplaceThePendingChunk()
+	{
+		BlockChangeDebouncer debouncer = new BlockChangeDebouncer();
+		LevelAccessor firstLevel = createLevel();
+		LevelAccessor secondLevel = createLevel();
+		long chunkPosLong = ChunkPos.asLong(0, 0);
+		
+		debouncer.onBlockChanged(firstLevel, 0, 0, START_MS);
+		BlockChangeDebouncer.PendingChunk firstPendingChunk = debouncer.getPendingChunk(0, 0);
+		
+		debouncer.onBlockChanged(secondLevel, 0, 0, START_MS + 100);
+		BlockChangeDebouncer.PendingChunk secondPendingChunk = debouncer.getPendingChunk(0, 0);
+		Assertions.assertNotSame(firstPendingChunk, secondPendingChunk);
+		Assertions.assertSame(secondLevel, secondPendingChunk.level);
+		Assertions.assertEquals(START_MS + 100, secondPendingChunk.firstChangeMs);
+		
+		// the old level's chunk can't be flushed
+		Assertions.assertFalse(debouncer.tryRemoveReadyChunk(chunkPosLong, firstPendingChunk, START_MS + BlockChangeDebouncer.MAX_DELAY_IN_MS));
+		
+		// unloading only drops the unloaded level's chunks
+		debouncer.onLevelUnload(firstLevel);
+		Assertions.assertSame(secondPendingChunk, debouncer.getPendingChunk(0, 0));
+		debouncer.onLevelUnload(secondLevel);
+		Assertions.assertNull(debouncer.getPendingChunk(0, 0));
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	/** the debouncer only compares levels by reference, so an empty proxy is enough */
+	private static LevelAccessor createLevel()
+	{
+		return (LevelAccessor) Proxy.newProxyInstance(
+				LevelAccessor.class.getClassLoader(),
+				new Class<?>[] { LevelAccessor.class },
+				(proxy, method, args) ->
+				{
+					if (method.getName().equals("equals"))
+					{
+						return proxy == args[0];
+					}
+					else if (method.getName().equals("hashCode"))
+					{
+						return System.identityHashCode(proxy);
+					}
+					return null;
+				});
+	}
+	
+}
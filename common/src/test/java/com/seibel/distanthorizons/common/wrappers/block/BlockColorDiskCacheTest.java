@@ -0,0 +1,153 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class BlockColorDiskCacheTest
+{
+	private static final long FINGERPRINT = 0x1234_5678_9ABCL;
+	private static final long REGISTRY_FINGERPRINT = 42L;
+	private static final int STATE_COUNT = 100;
+	
+	
+	
+	//===============//
+	// save and load //
+	//===============//
+	
+	@Test
+	public void savedColorsCanBeLoaded(@TempDir File folder)
+	{
+		File file = new File(new File(folder, BlockColorDiskCache.FOLDER_NAME), BlockColorDiskCache.FILE_NAME);
+		ClientBlockStateColorCache.BakedColors savedColors = createBakedColors();
+		BlockColorDiskCache.save(file, FINGERPRINT, savedColors);
+		
+		Assertions.assertTrue(file.exists());
+		Assertions.assertFalse(new File(file.getPath() + ".tmp").exists(), "temp file wasn't moved");
+		
+		ClientBlockStateColorCache.BakedColors loadedColors = BlockColorDiskCache.tryLoad(file, FINGERPRINT, STATE_COUNT, REGISTRY_FINGERPRINT);
+		Assertions.assertNotNull(loadedColors);
+		Assertions.assertArrayEquals(savedColors.flags, loadedColors.flags);
+		Assertions.assertArrayEquals(savedColors.baseColors, loadedColors.baseColors);
+		Assertions.assertArrayEquals(savedColors.tintIndices, loadedColors.tintIndices);
+		Assertions.assertEquals(REGISTRY_FINGERPRINT, loadedColors.registryFingerprint);
+	}
+	
+	@Test
+	public void savingReplacesTheOldFile(@TempDir File folder)
+	{
+		File file = new File(folder, BlockColorDiskCache.FILE_NAME);
+		BlockColorDiskCache.save(file, FINGERPRINT, createBakedColors());
+		BlockColorDiskCache.save(file, FINGERPRINT + 1, createBakedColors());
+		
+		Assertions.assertNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT, STATE_COUNT, REGISTRY_FINGERPRINT));
+		Assertions.assertNotNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT + 1, STATE_COUNT, REGISTRY_FINGERPRINT));
+	}
+	
+	@Test
+	public void outOfDateFilesAreIgnored(@TempDir File folder)
+	{
+		File file = new File(folder, BlockColorDiskCache.FILE_NAME);
+		BlockColorDiskCache.save(file, FINGERPRINT, createBakedColors());
+		
+		Assertions.assertNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT + 1, STATE_COUNT, REGISTRY_FINGERPRINT), "fingerprint changed");
+		Assertions.assertNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT, STATE_COUNT + 1, REGISTRY_FINGERPRINT), "state count changed");
+	}
+	
+	@Test
+	public void missingAndCorruptFilesAreIgnored(@TempDir File folder) throws IOException
+	{
+		File file = new File(folder, BlockColorDiskCache.FILE_NAME);
+		Assertions.assertNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT, STATE_COUNT, REGISTRY_FINGERPRINT));
+		
+		Files.write(file.toPath(), "not a gzip file".getBytes(StandardCharsets.UTF_8));
+		Assertions.assertNull(BlockColorDiskCache.tryLoad(file, FINGERPRINT, STATE_COUNT, REGISTRY_FINGERPRINT));
+	}
+	
+	
+	
+	//====================//
+	// folder fingerprint //
+	//====================//
+	
+	@Test
+	public void nestedResourcePackChangesChangeTheFingerprint(@TempDir File folder) throws IOException
+	{
+		File texture = new File(folder, "pack/assets/minecraft/textures/block/stone.png");
+		Files.createDirectories(texture.getParentFile().toPath());
+		Files.write(texture.toPath(), new byte[] { 1, 2, 3 });
+		long originalFingerprint = BlockColorDiskCache.getFolderFingerprint(folder, true);
+		
+		Assertions.assertEquals(originalFingerprint, BlockColorDiskCache.getFolderFingerprint(folder, true), "fingerprint isn't stable");
+		
+		Files.write(texture.toPath(), new byte[] { 1, 2, 3, 4 });
+		Assertions.assertNotEquals(originalFingerprint, BlockColorDiskCache.getFolderFingerprint(folder, true));
+	}
+	
+	@Test
+	public void nestedModFolderChangesAreIgnored(@TempDir File folder) throws IOException
+	{
+		File jar = new File(folder, "mod.jar");
+		Files.write(jar.toPath(), new byte[] { 1, 2, 3 });
+		File nestedConfig = new File(folder, "config/settings.toml");
+		Files.createDirectories(nestedConfig.getParentFile().toPath());
+		Files.write(nestedConfig.toPath(), new byte[] { 1 });
+		long originalFingerprint = BlockColorDiskCache.getFolderFingerprint(folder, false);
+		
+		Files.write(nestedConfig.toPath(), new byte[] { 1, 2 });
+		Assertions.assertEquals(originalFingerprint, BlockColorDiskCache.getFolderFingerprint(folder, false));
+		
+		Files.write(jar.toPath(), new byte[] { 1, 2, 3, 4 });
+		Assertions.assertNotEquals(originalFingerprint, BlockColorDiskCache.getFolderFingerprint(folder, false));
+	}
+	
+	@Test
+	public void missingFolderHasAnEmptyFingerprint(@TempDir File folder)
+	{
+		Assertions.assertEquals(0, BlockColorDiskCache.getFolderFingerprint(new File(folder, "missing"), true));
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	private static ClientBlockStateColorCache.BakedColors createBakedColors()
+	{
+		ClientBlockStateColorCache.BakedColors bakedColors = new ClientBlockStateColorCache.BakedColors(STATE_COUNT, REGISTRY_FINGERPRINT);
+		for (int i = 0; i < STATE_COUNT; i++)
+		{
+			bakedColors.flags[i] = (byte) (i % 8);
+			bakedColors.baseColors[i] = 0xFF00_0000 | (i * 0x01_0203);
+			bakedColors.tintIndices[i] = (i % 3) - 1;
+		}
+		return bakedColors;
+	}
+	
+}
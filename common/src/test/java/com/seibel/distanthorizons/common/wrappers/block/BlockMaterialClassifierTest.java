@@ -0,0 +1,244 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.block;
+
+#if MC_VER > MC_1_17_1
+import com.seibel.distanthorizons.api.enums.rendering.EDhApiBlockMaterial;
+import net.minecraft.SharedConstants;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.SoundType;
+import net.minecraft.world.level.block.state.BlockState;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+#if MC_VER < MC_1_19_4
+import net.minecraft.core.Registry;
+#else
+import net.minecraft.core.registries.BuiltInRegistries;
+#endif
+#endif
+
+/**
+ * Compares {@link BlockMaterialClassifier} against the if/else chain
+ * that {@link BlockStateWrapper} used before the classifier was added. <br><br>
+ * 
+ * Only run for MC 1.18+, older versions throw when a tag is used
+ * before a world's data packs have bound it.
+ */
+public class BlockMaterialClassifierTest
+{
+	#if MC_VER > MC_1_17_1
+	@BeforeAll
+	public static void bootstrapMinecraft()
+	{
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+	}
+	
+	
+	
+	@Test
+	public void vanillaBlockStatesMatchTheLegacyChain()
+	{
+		int stateCount = 0;
+		for (BlockState blockState : Block.BLOCK_STATE_REGISTRY)
+		{
+			String serialString = createSerialString(blockState);
+			for (boolean isLiquid : new boolean[] { false, true })
+			{
+				Assertions.assertEquals(
+						classifyLegacy(blockState, serialString, isLiquid),
+						BlockMaterialClassifier.classify(blockState, serialString, isLiquid),
+						"serial string: ["+serialString+"] liquid: ["+isLiquid+"]");
+			}
+			stateCount++;
+		}
+		
+		Assertions.assertTrue(stateCount > 0, "no block states were registered");
+	}
+	
+	@Test
+	public void nullBlockStateIsAir()
+	{
+		Assertions.assertEquals(EDhApiBlockMaterial.AIR, BlockMaterialClassifier.classify(null, BlockStateWrapper.AIR_STRING, false));
+	}
+	
+	@Test
+	public void keywordsIgnoreCase()
+	{
+		BlockState glass = Blocks.GLASS.defaultBlockState();
+		
+		Assertions.assertEquals(EDhApiBlockMaterial.SAND, BlockMaterialClassifier.classify(glass, "mod:glass_STATE_{cover:SAND}", false));
+		Assertions.assertEquals(EDhApiBlockMaterial.SAND, classifyLegacy(glass, "mod:glass_STATE_{cover:SAND}", false));
+	}
+	
+	/**
+	 * The legacy chain was case-sensitive for "snow" only,
+	 * so upper-case snow is the one intended difference.
+	 */
+	@Test
+	public void snowIgnoresCaseUnlikeTheLegacyChain()
+	{
+		BlockState glass = Blocks.GLASS.defaultBlockState();
+		
+		Assertions.assertEquals(EDhApiBlockMaterial.SNOW, BlockMaterialClassifier.classify(glass, "mod:glass_STATE_{cover:snowy}", false));
+		Assertions.assertEquals(EDhApiBlockMaterial.SNOW, classifyLegacy(glass, "mod:glass_STATE_{cover:snowy}", false));
+		
+		Assertions.assertEquals(EDhApiBlockMaterial.SNOW, BlockMaterialClassifier.classify(glass, "mod:glass_STATE_{cover:SNOWY}", false));
+		Assertions.assertEquals(EDhApiBlockMaterial.UNKNOWN, classifyLegacy(glass, "mod:glass_STATE_{cover:SNOWY}", false));
+	}
+	
+	@Test
+	public void earlierRulesTakePrecedence()
+	{
+		BlockState glass = Blocks.GLASS.defaultBlockState();
+		
+		// dirt is checked before sand and stone
+		Assertions.assertEquals(EDhApiBlockMaterial.DIRT, BlockMaterialClassifier.classify(glass, "mod:sandy_dirt_stone", false));
+		// liquids are water unless they're lava
+		Assertions.assertEquals(EDhApiBlockMaterial.WATER, BlockMaterialClassifier.classify(glass, "mod:sand", true));
+		// contains both "root" and "ore", wood is checked first
+		Assertions.assertEquals(EDhApiBlockMaterial.WOOD, BlockMaterialClassifier.classify(glass, "mod:rooted_ore", false));
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	/** matches {@link BlockStateWrapper}'s serialize method without needing a level */
+	private static String createSerialString(BlockState blockState)
+	{
+		#if MC_VER < MC_1_19_4
+		ResourceLocation resourceLocation = Registry.BLOCK.getKey(blockState.getBlock());
+		#else
+		ResourceLocation resourceLocation = BuiltInRegistries.BLOCK.getKey(blockState.getBlock());
+		#endif
+		
+		return resourceLocation.getNamespace() + BlockStateWrapper.RESOURCE_LOCATION_SEPARATOR + resourceLocation.getPath()
+				+ BlockStateWrapper.STATE_STRING_SEPARATOR + BlockStateWrapper.serializeBlockStateProperties(blockState);
+	}
+	
+	/** the if/else chain BlockStateWrapper used before {@link BlockMaterialClassifier} */
+	private static EDhApiBlockMaterial classifyLegacy(BlockState blockState, String originalSerialString, boolean isLiquid)
+	{
+		String serialString = originalSerialString.toLowerCase();
+		
+		if (blockState.is(BlockTags.LEAVES)
+			|| serialString.contains("bamboo")
+			|| serialString.contains("cactus")
+			|| serialString.contains("chorus_flower")
+			|| serialString.contains("mushroom")
+			)
+		{
+			return EDhApiBlockMaterial.LEAVES;
+		}
+		else if (blockState.is(Blocks.LAVA))
+		{
+			return EDhApiBlockMaterial.LAVA;
+		}
+		else if (isLiquid || blockState.is(Blocks.WATER))
+		{
+			return EDhApiBlockMaterial.WATER;
+		}
+		else if (blockState.getSoundType() == SoundType.WOOD
+				|| serialString.contains("root")
+				#if MC_VER >= MC_1_19_4
+				|| blockState.getSoundType() == SoundType.CHERRY_WOOD
+				#endif
+				)
+		{
+			return EDhApiBlockMaterial.WOOD;
+		}
+		else if (blockState.getSoundType() == SoundType.METAL
+				#if MC_VER >= MC_1_19_2
+				|| blockState.getSoundType() == SoundType.COPPER
+				#endif
+				#if MC_VER >= MC_1_20_4
+				|| blockState.getSoundType() == SoundType.COPPER_BULB
+				|| blockState.getSoundType() == SoundType.COPPER_GRATE
+				#endif
+				)
+		{
+			return EDhApiBlockMaterial.METAL;
+		}
+		else if (serialString.contains("grass_block"))
+		{
+			return EDhApiBlockMaterial.GRASS;
+		}
+		else if (
+			serialString.contains("dirt")
+			|| serialString.contains("gravel")
+			|| serialString.contains("mud")
+			|| serialString.contains("podzol")
+			|| serialString.contains("mycelium")
+			)
+		{
+			return EDhApiBlockMaterial.DIRT;
+		}
+		#if MC_VER >= MC_1_17_1
+		else if (blockState.getSoundType() == SoundType.DEEPSLATE
+				|| blockState.getSoundType() == SoundType.DEEPSLATE_BRICKS
+				|| blockState.getSoundType() == SoundType.DEEPSLATE_TILES
+				|| blockState.getSoundType() == SoundType.POLISHED_DEEPSLATE
+				|| serialString.contains("deepslate"))
+		{
+			return EDhApiBlockMaterial.DEEPSLATE;
+		}
+		#endif
+		else if (originalSerialString.contains("snow")) // case-sensitive in the legacy chain
+		{
+			return EDhApiBlockMaterial.SNOW;
+		}
+		else if (serialString.contains("sand"))
+		{
+			return EDhApiBlockMaterial.SAND;
+		}
+		else if (serialString.contains("terracotta"))
+		{
+			return EDhApiBlockMaterial.TERRACOTTA;
+		}
+		else if (blockState.is(BlockTags.BASE_STONE_NETHER))
+		{
+			return EDhApiBlockMaterial.NETHER_STONE;
+		}
+		else if (serialString.contains("stone")
+				|| serialString.contains("ore"))
+		{
+			return EDhApiBlockMaterial.STONE;
+		}
+		else if (blockState.getLightEmission() > 0)
+		{
+			return EDhApiBlockMaterial.ILLUMINATED;
+		}
+		else
+		{
+			return EDhApiBlockMaterial.UNKNOWN;
+		}
+	}
+	
+	#endif
+}
@@ -0,0 +1,191 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.worldGeneration;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class RegionChunkDecompressorTest
+{
+	
+	@Test
+	public void gzipRoundTrip() throws IOException
+	{
+		CompoundTag tag = createTestTag(16);
+		byte[] compressed = gzip(toBytes(tag));
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_GZIP, compressed, 0, compressed.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void gzipWithOptionalHeaderFields() throws IOException
+	{
+		CompoundTag tag = createTestTag(16);
+		byte[] compressed = gzip(toBytes(tag));
+		
+		// set the name and comment flags and insert both fields after the 10 byte header
+		byte[] withFields = new byte[compressed.length + 10];
+		System.arraycopy(compressed, 0, withFields, 0, 10);
+		withFields[3] = (byte) (8 | 16);
+		byte[] fields = { 'n', 'a', 'm', 'e', 0, 'c', 'o', 'm', 'm', 0 };
+		System.arraycopy(fields, 0, withFields, 10, fields.length);
+		System.arraycopy(compressed, 10, withFields, 10 + fields.length, compressed.length - 10);
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_GZIP, withFields, 0, withFields.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void gzipBadCrc() throws IOException
+	{
+		byte[] compressed = gzip(toBytes(createTestTag(16)));
+		// the CRC is the first 4 bytes of the 8 byte trailer
+		compressed[compressed.length - 8] ^= 0xFF;
+		
+		Assertions.assertThrows(IOException.class, () -> RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_GZIP, compressed, 0, compressed.length));
+	}
+	
+	@Test
+	public void gzipBadHeader() throws IOException
+	{
+		byte[] compressed = gzip(toBytes(createTestTag(16)));
+		compressed[0] = 0;
+		
+		Assertions.assertThrows(IOException.class, () -> RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_GZIP, compressed, 0, compressed.length));
+	}
+	
+	@Test
+	public void zlibRoundTrip() throws IOException
+	{
+		CompoundTag tag = createTestTag(16);
+		byte[] compressed = zlib(toBytes(tag));
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_ZLIB, compressed, 0, compressed.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void zlibTruncated() throws IOException
+	{
+		byte[] compressed = zlib(toBytes(createTestTag(512)));
+		
+		Assertions.assertThrows(IOException.class, () -> RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_ZLIB, compressed, 0, compressed.length / 2));
+	}
+	
+	@Test
+	public void zlibLargerThanInitialBuffer() throws IOException
+	{
+		// well over the 64 KB initial output buffer, so the buffer has to grow
+		CompoundTag tag = createTestTag(20_000);
+		byte[] uncompressed = toBytes(tag);
+		Assertions.assertTrue(uncompressed.length > 64 * 1024);
+		byte[] compressed = zlib(uncompressed);
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_ZLIB, compressed, 0, compressed.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void noneRoundTrip() throws IOException
+	{
+		CompoundTag tag = createTestTag(16);
+		byte[] uncompressed = toBytes(tag);
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_NONE, uncompressed, 0, uncompressed.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void offsetIntoBuffer() throws IOException
+	{
+		// region reads pass the buffer with the 5 byte length/compression prefix still at the start
+		CompoundTag tag = createTestTag(16);
+		byte[] compressed = zlib(toBytes(tag));
+		byte[] withPrefix = new byte[compressed.length + 5];
+		System.arraycopy(compressed, 0, withPrefix, 5, compressed.length);
+		
+		CompoundTag readTag = RegionChunkDecompressor.get().readNbt(RegionChunkDecompressor.COMPRESSION_ZLIB, withPrefix, 5, compressed.length);
+		Assertions.assertEquals(tag, readTag);
+	}
+	
+	@Test
+	public void unsupportedCompressionType()
+	{
+		Assertions.assertFalse(RegionChunkDecompressor.isSupported((byte) 127));
+		Assertions.assertThrows(IOException.class, () -> RegionChunkDecompressor.get().readNbt((byte) 127, new byte[8], 0, 8));
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	private static CompoundTag createTestTag(int entryCount)
+	{
+		CompoundTag tag = new CompoundTag();
+		for (int i = 0; i < entryCount; i++)
+		{
+			tag.putInt("int" + i, i * 31);
+			tag.putString("string" + i, "value " + i);
+		}
+		return tag;
+	}
+	
+	private static byte[] toBytes(CompoundTag tag) throws IOException
+	{
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		try (DataOutputStream stream = new DataOutputStream(byteStream))
+		{
+			NbtIo.write(tag, stream);
+		}
+		return byteStream.toByteArray();
+	}
+	
+	private static byte[] gzip(byte[] data) throws IOException
+	{
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		try (GZIPOutputStream stream = new GZIPOutputStream(byteStream))
+		{
+			stream.write(data);
+		}
+		return byteStream.toByteArray();
+	}
+	
+	private static byte[] zlib(byte[] data) throws IOException
+	{
+		ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+		try (DeflaterOutputStream stream = new DeflaterOutputStream(byteStream))
+		{
+			stream.write(data);
+		}
+		return byteStream.toByteArray();
+	}
+	
+}
@@ -0,0 +1,189 @@
+/*
+ *    This file is part of the Distant Horizons mod
+ *    licensed under the GNU LGPL v3 License.
+ *
+ *    Copyright (C) 2020-2023 James Seibel
+ *
+ *    This program is free software: you can redistribute it and/or modify
+ *    it under the terms of the GNU Lesser General Public License as published by
+ *    the Free Software Foundation, version 3.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU Lesser General Public License for more details.
+ *
+ *    You should have received a copy of the GNU Lesser General Public License
+ *    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.seibel.distanthorizons.common.wrappers.worldGeneration.mimicObject;
+
+#if MC_VER > MC_1_17_1
+import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.ChunkLightStorage;
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.ChunkPos;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+#endif
+
+/** MC 1.16 and 1.17 chunks don't contain lighting, so there's nothing to test for them. */
+public class ChunkLoaderLightTest
+{
+	#if MC_VER > MC_1_17_1
+	private static final ChunkPos CHUNK_POS = new ChunkPos(0, 0);
+	private static final int MIN_BUILD_HEIGHT = -64;
+	private static final int MAX_BUILD_HEIGHT = 320;
+	
+	
+	
+	@BeforeAll
+	public static void bootstrapMinecraft()
+	{
+		// ChunkLoader's codecs need the block registry
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+	}
+	
+	
+	
+	@Test
+	public void nibblesAreDecodedInYzxOrder()
+	{
+		ListTag sections = new ListTag();
+		sections.add(createSection(2, createPatternNibbles(), null));
+		
+		ChunkLightStorage blockLight = readLight(sections).blockLightStorage;
+		for (int relY = 0; relY < 16; relY++)
+		{
+			for (int z = 0; z < 16; z++)
+			{
+				for (int x = 0; x < 16; x++)
+				{
+					Assertions.assertEquals(getPatternValue(x, relY, z), blockLight.get(x, 32 + relY, z), "x: "+x+" relY: "+relY+" z: "+z);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void sectionsArePlacedByTheirYTag()
+	{
+		// out of order, with a gap and a light-only section below the build height
+		ListTag sections = new ListTag();
+		sections.add(createSection(2, createUniformNibbles(9), null));
+		sections.add(createSection(-5, createUniformNibbles(15), null));
+		sections.add(createSection(-1, createUniformNibbles(7), null));
+		
+		ChunkLightStorage blockLight = readLight(sections).blockLightStorage;
+		
+		// section -1 covers -16 to -1
+		Assertions.assertEquals(7, blockLight.get(0, -16, 0));
+		Assertions.assertEquals(7, blockLight.get(15, -1, 15));
+		// section 0 and 1 are missing
+		Assertions.assertEquals(0, blockLight.get(0, 0, 0));
+		Assertions.assertEquals(0, blockLight.get(0, 31, 0));
+		// section 2 covers 32 to 47
+		Assertions.assertEquals(9, blockLight.get(0, 32, 0));
+		Assertions.assertEquals(9, blockLight.get(15, 47, 15));
+		Assertions.assertEquals(0, blockLight.get(0, 48, 0));
+		// section -5 is below the build height and shouldn't be placed in the lowest section
+		Assertions.assertEquals(0, blockLight.get(0, MIN_BUILD_HEIGHT, 0));
+	}
+	
+	@Test
+	public void skyLightIsFullAboveTheFirstSkyLitSection()
+	{
+		ListTag sections = new ListTag();
+		sections.add(createSection(0, null, createUniformNibbles(3)));
+		
+		ChunkLightStorage skyLight = readLight(sections).skyLightStorage;
+		
+		// below the first section with sky light
+		Assertions.assertEquals(0, skyLight.get(0, -1, 0));
+		Assertions.assertEquals(3, skyLight.get(0, 0, 0));
+		// sections without sky light data above it are fully lit
+		Assertions.assertEquals(15, skyLight.get(0, 16, 0));
+		Assertions.assertEquals(15, skyLight.get(0, MAX_BUILD_HEIGHT - 1, 0));
+	}
+	
+	@Test
+	public void wrongLengthNibbleArraysAreTreatedAsEmpty()
+	{
+		ListTag sections = new ListTag();
+		sections.add(createSection(0, new byte[100], null));
+		
+		ChunkLightStorage blockLight = readLight(sections).blockLightStorage;
+		Assertions.assertEquals(0, blockLight.get(0, 0, 0));
+	}
+	
+	
+	
+	//================//
+	// helper methods //
+	//================//
+	
+	private static ChunkLoader.CombinedChunkLightStorage readLight(ListTag sections)
+	{
+		CompoundTag chunkData = new CompoundTag();
+		chunkData.put("sections", sections);
+		return ChunkLoader.readLight(CHUNK_POS, chunkData, MIN_BUILD_HEIGHT, MAX_BUILD_HEIGHT);
+	}
+	
+	private static CompoundTag createSection(int sectionY, byte[] blockLight, byte[] skyLight)
+	{
+		CompoundTag section = new CompoundTag();
+		section.putByte("Y", (byte) sectionY);
+		if (blockLight != null)
+		{
+			section.putByteArray("BlockLight", blockLight);
+		}
+		if (skyLight != null)
+		{
+			section.putByteArray("SkyLight", skyLight);
+		}
+		return section;
+	}
+	
+	private static byte[] createUniformNibbles(int value)
+	{
+		byte[] nibbles = new byte[2048];
+		Arrays.fill(nibbles, (byte) ((value << 4) | value));
+		return nibbles;
+	}
+	
+	/** packed the same way MC's DataLayer is, two nibbles per byte with the lower X first */
+	private static byte[] createPatternNibbles()
+	{
+		byte[] nibbles = new byte[2048];
+		for (int y = 0; y < 16; y++)
+		{
+			for (int z = 0; z < 16; z++)
+			{
+				for (int x = 0; x < 16; x++)
+				{
+					int index = (y << 8) | (z << 4) | x;
+					int value = getPatternValue(x, y, z);
+					if ((index & 1) == 0)
+					{
+						nibbles[index >> 1] |= (byte) value;
+					}
+					else
+					{
+						nibbles[index >> 1] |= (byte) (value << 4);
+					}
+				}
+			}
+		}
+		return nibbles;
+	}
+	private static int getPatternValue(int x, int y, int z) { return (x + (y * 3) + (z * 7)) & 0x0F; }
+	
+	#endif
+}
@@ -21,20 +21,18 @@ package com.seibel.distanthorizons.fabric;
 
 import com.seibel.distanthorizons.common.AbstractModInitializer;
 import com.seibel.distanthorizons.common.AbstractPluginPacketSender;
+import com.seibel.distanthorizons.common.util.BlockChangeDebouncer;
+import com.seibel.distanthorizons.common.util.ProxyUtil;
 import com.seibel.distanthorizons.common.wrappers.McObjectConverter;
 import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
 import com.seibel.distanthorizons.core.api.internal.ClientApi;
 import com.mojang.blaze3d.platform.InputConstants;
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
 
-import com.seibel.distanthorizons.core.api.internal.SharedApi;
 import com.seibel.distanthorizons.core.dependencyInjection.ModAccessorInjector;
 import com.seibel.distanthorizons.core.dependencyInjection.SingletonInjector;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
-import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
 import com.seibel.distanthorizons.core.wrapperInterfaces.minecraft.IMinecraftClientWrapper;
 import com.seibel.distanthorizons.core.wrapperInterfaces.modAccessor.ISodiumAccessor;
-import com.seibel.distanthorizons.core.wrapperInterfaces.world.IClientLevelWrapper;
 import com.seibel.distanthorizons.core.util.math.Mat4f;
 import com.seibel.distanthorizons.fabric.wrappers.modAccessor.SodiumAccessor;
 import net.fabricmc.api.EnvType;
@@ -59,11 +57,8 @@ import com.seibel.distanthorizons.core.network.messages.AbstractNetworkMessage;
 import java.nio.FloatBuffer;
 #endif
 import java.util.HashSet;
-import java.util.concurrent.ThreadPoolExecutor;
 
-import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.world.InteractionResult;
-import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.phys.HitResult;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.glfw.GLFW;
@@ -112,7 +107,11 @@ public class FabricClientProxy implements AbstractModInitializer.IEventProxy
 		// tick events //
 		//=============//
 		
-		ClientTickEvents.START_CLIENT_TICK.register((client) -> { ClientApi.INSTANCE.clientTickEvent(); });
+		ClientTickEvents.START_CLIENT_TICK.register((client) -> 
+		{
+			ClientApi.INSTANCE.clientTickEvent();
+			BlockChangeDebouncer.INSTANCE.tick();
+		});
 		
 		
 		
@@ -125,8 +124,7 @@ public class FabricClientProxy implements AbstractModInitializer.IEventProxy
 		{
 			if (MC.clientConnectedToDedicatedServer())
 			{
-				IClientLevelWrapper wrappedLevel = ClientLevelWrapper.getWrapper(level);
-				SharedApi.INSTANCE.chunkLoadEvent(new ChunkWrapper(chunk, wrappedLevel), wrappedLevel);
+				ProxyUtil.submitChunkLoadEvent(level, chunk);
 			}
 		});
 		
@@ -137,30 +135,7 @@ public class FabricClientProxy implements AbstractModInitializer.IEventProxy
 			// if we have access to the server, use the chunk save event instead 
 			if (MC.clientConnectedToDedicatedServer())
 			{
-				if (SharedApi.isChunkAtBlockPosAlreadyUpdating(blockPos.getX(), blockPos.getZ()))
-				{
-					// executor to prevent locking up the render/event thread
-					// if the getChunk() takes longer than expected 
-					// (which can be caused by certain mods) 
-					ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-					if (executor != null)
-					{
-						executor.execute(() ->
-						{
-							ChunkAccess chunk = level.getChunk(blockPos);
-							if (chunk != null)
-							{
-								//LOGGER.trace("attack block at blockPos: " + blockPos);
-								
-								IClientLevelWrapper wrappedLevel = ClientLevelWrapper.getWrapper((ClientLevel) level);
-								SharedApi.INSTANCE.chunkBlockChangedEvent(
-										new ChunkWrapper(chunk, wrappedLevel),
-										wrappedLevel
-								);
-							}
-						});
-					}
-				}
+				BlockChangeDebouncer.INSTANCE.onBlockChanged(level, blockPos);
 			}
 			
 			// don't stop the callback
@@ -177,30 +152,7 @@ public class FabricClientProxy implements AbstractModInitializer.IEventProxy
 				if (hitResult.getType() == HitResult.Type.BLOCK
 						&& !hitResult.isInside())
 				{
-					if (SharedApi.isChunkAtBlockPosAlreadyUpdating(hitResult.getBlockPos().getX(), hitResult.getBlockPos().getZ()))
-					{
-						// executor to prevent locking up the render/event thread
-						// if the getChunk() takes longer than expected 
-						// (which can be caused by certain mods) 
-						ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-						if (executor != null)
-						{
-							executor.execute(() ->
-							{
-								ChunkAccess chunk = level.getChunk(hitResult.getBlockPos());
-								if (chunk != null)
-								{
-									//LOGGER.trace("use block at blockPos: " + hitResult.getBlockPos());
-									
-									IClientLevelWrapper wrappedLevel = ClientLevelWrapper.getWrapper((ClientLevel) level);
-									SharedApi.INSTANCE.chunkBlockChangedEvent(
-											new ChunkWrapper(chunk, wrappedLevel),
-											wrappedLevel
-									);
-								}
-							});
-						}
-					}
+					BlockChangeDebouncer.INSTANCE.onBlockChanged(level, hitResult.getBlockPos());
 				}
 			}
 			
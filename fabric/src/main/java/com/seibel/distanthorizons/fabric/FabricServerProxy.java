@@ -90,7 +90,11 @@ public class FabricServerProxy implements AbstractModInitializer.IEventProxy
 		/* Register the mod needed event callbacks */
 		
 		// ServerTickEvent
-		ServerTickEvents.END_SERVER_TICK.register((server) -> SERVER_API.serverTickEvent());
+		ServerTickEvents.END_SERVER_TICK.register((server) -> 
+		{
+			SERVER_API.serverTickEvent();
+			ServerLevelWrapper.onServerTick();
+		});
 		
 		
 		// can be enabled to test world gen overrides without having to build a separate API project 
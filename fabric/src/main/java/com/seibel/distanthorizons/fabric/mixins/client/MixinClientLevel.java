@@ -19,10 +19,7 @@
 
 package com.seibel.distanthorizons.fabric.mixins.client;
 
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
-import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
-import com.seibel.distanthorizons.core.api.internal.ClientApi;
-import com.seibel.distanthorizons.core.api.internal.SharedApi;
+import com.seibel.distanthorizons.common.util.ProxyUtil;
 import net.minecraft.client.multiplayer.ClientLevel;
 #if MC_VER >= MC_1_18_2
 #endif
@@ -60,7 +57,7 @@ public class MixinClientLevel
 		
 		if (chunk != null && !chunk.isClientLightReady())
 		{
-			SharedApi.INSTANCE.chunkLoadEvent(new ChunkWrapper(chunk, clientLevel, ClientLevelWrapper.getWrapper(clientLevel)), ClientLevelWrapper.getWrapper(clientLevel));
+			ProxyUtil.submitChunkLoadEvent(clientLevel, chunk);
 		}
 	}
 	#endif
@@ -2,7 +2,6 @@ package com.seibel.distanthorizons.fabric.mixins.client;
 
 import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
 import com.seibel.distanthorizons.core.api.internal.ClientApi;
-import com.seibel.distanthorizons.core.api.internal.SharedApi;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.client.multiplayer.ClientPacketListener;
 import org.spongepowered.asm.mixin.Mixin;
@@ -13,9 +12,8 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 #if MC_VER >= MC_1_20_1
-import com.seibel.distanthorizons.core.wrapperInterfaces.world.IClientLevelWrapper;
+import com.seibel.distanthorizons.common.util.ProxyUtil;
 import net.minecraft.world.level.chunk.LevelChunk;
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
 #endif
 
 @Mixin(ClientPacketListener.class)
@@ -45,8 +43,7 @@ public class MixinClientPacketListener
 	@Inject(method = "enableChunkLight", at = @At("TAIL"))
 	void onEnableChunkLight(LevelChunk chunk, int x, int z, CallbackInfo ci)
 	{
-		IClientLevelWrapper clientLevel = ClientLevelWrapper.getWrapper((ClientLevel) chunk.getLevel());
-		SharedApi.INSTANCE.chunkLoadEvent(new ChunkWrapper(chunk, clientLevel), clientLevel);
+		ProxyUtil.submitChunkLoadEvent(chunk.getLevel(), chunk);
 	}
 
 	#endif
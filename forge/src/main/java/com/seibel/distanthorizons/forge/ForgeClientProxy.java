@@ -20,19 +20,16 @@
 package com.seibel.distanthorizons.forge;
 
 import com.seibel.distanthorizons.common.AbstractModInitializer;
+import com.seibel.distanthorizons.common.util.BlockChangeDebouncer;
 import com.seibel.distanthorizons.common.util.ProxyUtil;
 import com.seibel.distanthorizons.common.wrappers.minecraft.MinecraftRenderWrapper;
 import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
 import com.seibel.distanthorizons.core.api.internal.ClientApi;
-import com.seibel.distanthorizons.core.api.internal.SharedApi;
 import com.seibel.distanthorizons.core.dependencyInjection.SingletonInjector;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
-import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
-import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.IChunkWrapper;
 
 import com.seibel.distanthorizons.core.wrapperInterfaces.minecraft.IMinecraftClientWrapper;
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.IClientLevelWrapper;
-import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 import net.minecraft.world.level.LevelAccessor;
 
 import net.minecraft.client.multiplayer.ClientLevel;
@@ -48,13 +45,11 @@ import net.minecraftforge.event.level.LevelEvent;
 import net.minecraftforge.client.event.RenderLevelStageEvent;
 #endif
 import net.minecraftforge.event.entity.player.PlayerInteractEvent;
-import net.minecraft.world.level.chunk.ChunkAccess;
 
 import net.minecraftforge.common.MinecraftForge;
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.glfw.GLFW;
 
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
 
 import net.minecraft.client.Minecraft;
 import net.minecraftforge.client.event.InputEvent;
@@ -62,7 +57,6 @@ import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.lwjgl.opengl.GL32;
 
-import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * This handles all events sent to the client,
@@ -104,6 +98,7 @@ public class ForgeClientProxy implements AbstractModInitializer.IEventProxy
 		if (event.phase == TickEvent.Phase.START)
 		{
 			ClientApi.INSTANCE.clientTickEvent();
+			BlockChangeDebouncer.INSTANCE.tick();
 		}
 	}
 	
@@ -172,11 +167,6 @@ public class ForgeClientProxy implements AbstractModInitializer.IEventProxy
 	{
 		if (MC.clientConnectedToDedicatedServer())
 		{
-			if (SharedApi.isChunkAtBlockPosAlreadyUpdating(event.getPos().getX(), event.getPos().getZ()))
-			{
-				return;
-			}
-			
 			//LOGGER.trace("interact or block place event at blockPos: " + event.getPos());
 			
 			#if MC_VER < MC_1_19_2
@@ -185,15 +175,7 @@ public class ForgeClientProxy implements AbstractModInitializer.IEventProxy
 			LevelAccessor level = event.getLevel();
 			#endif
 			
-			ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-			if (executor != null)
-			{
-				executor.execute(() ->
-				{
-					ChunkAccess chunk = level.getChunk(event.getPos());
-					this.onBlockChangeEvent(level, chunk);
-				});
-			}
+			BlockChangeDebouncer.INSTANCE.onBlockChanged(level, event.getPos());
 		}
 	}
 	@SubscribeEvent
@@ -201,11 +183,6 @@ public class ForgeClientProxy implements AbstractModInitializer.IEventProxy
 	{
 		if (MC.clientConnectedToDedicatedServer())
 		{
-			if (SharedApi.isChunkAtBlockPosAlreadyUpdating(event.getPos().getX(), event.getPos().getZ()))
-			{
-				return;
-			}
-			
 			//LOGGER.trace("break or block attack at blockPos: " + event.getPos());
 			
 			#if MC_VER < MC_1_19_2
@@ -214,31 +191,16 @@ public class ForgeClientProxy implements AbstractModInitializer.IEventProxy
 			LevelAccessor level = event.getLevel();
 			#endif
 			
-			ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-			if (executor != null)
-			{
-				executor.execute(() ->
-				{
-					ChunkAccess chunk = level.getChunk(event.getPos());
-					this.onBlockChangeEvent(level, chunk);
-				});
-			}
+			BlockChangeDebouncer.INSTANCE.onBlockChanged(level, event.getPos());
 		}
 	}
-	private void onBlockChangeEvent(LevelAccessor level, ChunkAccess chunk)
-	{
-		ILevelWrapper wrappedLevel = ProxyUtil.getLevelWrapper(level);
-		SharedApi.INSTANCE.chunkBlockChangedEvent(new ChunkWrapper(chunk, wrappedLevel), wrappedLevel);
-	}
 
 	@SubscribeEvent
 	public void clientChunkLoadEvent(ChunkEvent.Load event)
 	{
 		if (MC.clientConnectedToDedicatedServer())
 		{
-			ILevelWrapper wrappedLevel = ProxyUtil.getLevelWrapper(GetEventLevel(event));
-			IChunkWrapper chunk = new ChunkWrapper(event.getChunk(), wrappedLevel);
-			SharedApi.INSTANCE.chunkLoadEvent(chunk, wrappedLevel);
+			ProxyUtil.submitChunkLoadEvent(GetEventLevel(event), event.getChunk());
 		}
 	}
 	
@@ -96,6 +96,7 @@ public class ForgeServerProxy implements AbstractModInitializer.IEventProxy
 		if (event.phase == TickEvent.Phase.END)
 		{
 			this.serverApi.serverTickEvent();
+			ServerLevelWrapper.onServerTick();
 		}
 	}
 	
@@ -0,0 +1,27 @@
+package com.seibel.distanthorizons.forge.mixins.server;
+
+import com.seibel.distanthorizons.common.commonMixins.MixinLevelChunkCommon;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(LevelChunk.class)
+public class MixinLevelChunk
+{
+	
+	@Shadow
+	@Final
+	Level level;
+	
+	@Inject(method = "setBlockState", at = @At("RETURN"))
+	private void onSetBlockState(BlockPos pos, BlockState state, boolean isMoving, CallbackInfoReturnable<BlockState> ci)
+	{ MixinLevelChunkCommon.onSetBlockState(this.level, (LevelChunk) (Object) this, ci); }
+	
+}
@@ -20,21 +20,18 @@
 package com.seibel.distanthorizons.neoforge;
 
 import com.seibel.distanthorizons.common.AbstractModInitializer;
-import com.seibel.distanthorizons.common.util.ProxyUtil;
+import com.seibel.distanthorizons.common.util.BlockChangeDebouncer;
 import com.seibel.distanthorizons.common.wrappers.McObjectConverter;
 import com.seibel.distanthorizons.common.wrappers.minecraft.MinecraftRenderWrapper;
 import com.seibel.distanthorizons.common.wrappers.world.ClientLevelWrapper;
 import com.seibel.distanthorizons.core.api.internal.ClientApi;
-import com.seibel.distanthorizons.core.api.internal.SharedApi;
 import com.seibel.distanthorizons.core.dependencyInjection.SingletonInjector;
 import com.seibel.distanthorizons.core.logging.DhLoggerBuilder;
 import com.seibel.distanthorizons.core.util.math.Mat4f;
-import com.seibel.distanthorizons.core.util.threading.ThreadPoolUtil;
 import com.seibel.distanthorizons.core.wrapperInterfaces.chunk.IChunkWrapper;
 
 import com.seibel.distanthorizons.core.wrapperInterfaces.minecraft.IMinecraftClientWrapper;
 import com.seibel.distanthorizons.core.wrapperInterfaces.world.IClientLevelWrapper;
-import com.seibel.distanthorizons.core.wrapperInterfaces.world.ILevelWrapper;
 import net.minecraft.world.level.LevelAccessor;
 
 import net.minecraft.client.multiplayer.ClientLevel;
@@ -44,13 +41,10 @@ import net.neoforged.neoforge.event.level.ChunkEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
 
 import net.neoforged.neoforge.event.entity.player.PlayerInteractEvent;
-import net.minecraft.world.level.chunk.ChunkAccess;
 
 import org.apache.logging.log4j.Logger;
 import org.lwjgl.glfw.GLFW;
 
-import com.seibel.distanthorizons.common.wrappers.chunk.ChunkWrapper;
-
 import net.minecraft.client.Minecraft;
 import net.neoforged.neoforge.client.event.InputEvent;
 import net.neoforged.bus.api.SubscribeEvent;
@@ -60,8 +54,6 @@ import org.lwjgl.opengl.GL32;
 import net.neoforged.neoforge.event.TickEvent;
 #else
 import net.neoforged.neoforge.client.event.ClientTickEvent;
-
-import java.util.concurrent.ThreadPoolExecutor;
 #endif
 
 
@@ -102,6 +94,7 @@ public class NeoforgeClientProxy implements AbstractModInitializer.IEventProxy
 		if (event.phase == TickEvent.Phase.START)
 		{
 			ClientApi.INSTANCE.clientTickEvent();
+			BlockChangeDebouncer.INSTANCE.tick();
 		}
 	}
 	#else
@@ -109,6 +102,7 @@ public class NeoforgeClientProxy implements AbstractModInitializer.IEventProxy
 	public void clientTickEvent(ClientTickEvent.Pre event)
 	{
 		ClientApi.INSTANCE.clientTickEvent();
+		BlockChangeDebouncer.INSTANCE.tick();
 	}
 	#endif
 	
@@ -161,26 +155,8 @@ public class NeoforgeClientProxy implements AbstractModInitializer.IEventProxy
 	{
 		if (MC.clientConnectedToDedicatedServer())
 		{
-			if (SharedApi.isChunkAtBlockPosAlreadyUpdating(event.getPos().getX(), event.getPos().getZ()))
-			{
-				return;
-			}
-			
-			// executor to prevent locking up the render/event thread
-			// if the getChunk() takes longer than expected 
-			// (which can be caused by certain mods) 
-			ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-			if (executor != null)
-			{
-				executor.execute(() ->
-				{
-					//LOGGER.trace("interact or block place event at blockPos: " + event.getPos());
-					
-					LevelAccessor level = event.getLevel();
-					ChunkAccess chunk = level.getChunk(event.getPos());
-					this.onBlockChangeEvent(level, chunk);
-				});
-			}
+			//LOGGER.trace("interact or block place event at blockPos: " + event.getPos());
+			BlockChangeDebouncer.INSTANCE.onBlockChanged(event.getLevel(), event.getPos());
 		}
 	}
 	@SubscribeEvent
@@ -188,33 +164,10 @@ public class NeoforgeClientProxy implements AbstractModInitializer.IEventProxy
 	{
 		if (MC.clientConnectedToDedicatedServer())
 		{
-			if (SharedApi.isChunkAtBlockPosAlreadyUpdating(event.getPos().getX(), event.getPos().getZ()))
-			{
-				return;
-			}
-			
-			// executor to prevent locking up the render/event thread
-			// if the getChunk() takes longer than expected 
-			// (which can be caused by certain mods) 
-			ThreadPoolExecutor executor = ThreadPoolUtil.getFileHandlerExecutor();
-			if (executor != null)
-			{
-				executor.execute(() ->
-				{
-					//LOGGER.trace("break or block attack at blockPos: " + event.getPos());
-					
-					LevelAccessor level = event.getLevel();
-					ChunkAccess chunk = level.getChunk(event.getPos());
-					this.onBlockChangeEvent(level, chunk);
-				});
-			}
+			//LOGGER.trace("break or block attack at blockPos: " + event.getPos());
+			BlockChangeDebouncer.INSTANCE.onBlockChanged(event.getLevel(), event.getPos());
 		}
 	}
-	private void onBlockChangeEvent(LevelAccessor level, ChunkAccess chunk)
-	{
-		ILevelWrapper wrappedLevel = ProxyUtil.getLevelWrapper(level);
-		SharedApi.INSTANCE.chunkBlockChangedEvent(new ChunkWrapper(chunk, wrappedLevel), wrappedLevel);
-	}
 	
 	
 	
@@ -75,6 +75,7 @@ public class NeoforgeServerProxy implements AbstractModInitializer.IEventProxy
 		if (event.phase == TickEvent.Phase.END)
 		{
 			this.serverApi.serverTickEvent();
+			ServerLevelWrapper.onServerTick();
 		}
 	}
 	#else
@@ -82,6 +83,7 @@ public class NeoforgeServerProxy implements AbstractModInitializer.IEventProxy
 	public void serverTickEvent(ServerTickEvent.Post event)
 	{
 		this.serverApi.serverTickEvent();
+		ServerLevelWrapper.onServerTick();
 	}
 	#endif
 	